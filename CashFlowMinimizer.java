@@ -1,10 +1,19 @@
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.function.IntFunction;
 import javax.swing.*;
 
 /**
@@ -13,14 +22,23 @@ import javax.swing.*;
  * to minimize the number of payments required to settle all debts.
  *
  * Steps:
- * 1. Input debts as (payer, receiver, amount)triplets.
- * 2. Compute net balances for each individual.
- * 3. Use a min-heap (priority queue) to settle amounts efficiently.
+ * 1. Input debts as (payer, receiver, amount)triplets, typed in or imported from CSV.
+ * 2. Compute net balances for each individual (see Ledger), persisted across runs by ConcurrentLedger.
+ * 3. Settle amounts greedily, with a min-heap (priority queue) or with two pointers over sorted balances.
+ *    ZeroSumSettlement finds the fewest payments by splitting people into zero-sum groups.
  * 4. Display minimized transactions in a GUI.
  */
 public class CashFlowMinimizer {
-    // Stores the net balance of each person
-    private static Map<String, Integer> balanceMap = new HashMap<>();
+    // Directory holding the persisted balances (write-ahead log and snapshot)
+    private static final String DATA_DIRECTORY = System.getProperty("cashflow.data", "cashflow-data");
+    // Stores the net balance of each person; shared by every open window (EDT only)
+    private static ConcurrentLedger ledger;
+    // Open windows plus running workers using the ledger; the last one to finish closes it (EDT only)
+    private static int ledgerUsers;
+    // Snapshots and closes the previous ledger off the EDT; a reopen waits for it (EDT only)
+    private static Thread ledgerCloser;
+    // Upper bound on settlement lines rendered in the result area
+    private static final int MAX_DISPLAYED = 10_000;
 
     public static void main(String[] args) {
         // Launch the GUI in a separate event dispatch thread
@@ -33,9 +51,29 @@ public class CashFlowMinimizer {
     private static void createGUI() {
         JFrame frame = new JFrame("Cash Flow Minimizer");
         frame.setSize(500, 400);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // See ProjectLauncher
         frame.setLayout(new BorderLayout());
 
+        // Restore balances saved by earlier runs; later windows reuse the open ledger
+        ConcurrentLedger shared;
+        try {
+            shared = acquireLedger();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(frame, "Unable to open ledger in " + DATA_DIRECTORY + ": " + ex.getMessage());
+            return;
+        }
+        frame.addWindowListener(new WindowAdapter() {
+            private boolean released;
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (!released) {
+                    released = true;
+                    releaseLedger(); // Running workers keep it open until they finish
+                }
+            }
+        });
+
         JPanel panel = new JPanel();
         panel.setLayout(new GridLayout(5, 2));
 
@@ -44,6 +82,7 @@ public class CashFlowMinimizer {
         JTextField amountField = new JTextField();
         JButton addButton = new JButton("Add Transaction");
         JButton minimizeButton = new JButton("Minimize Cash Flow");
+        JButton importButton = new JButton("Import CSV");
         JTextArea resultArea = new JTextArea();
         resultArea.setEditable(false);
 
@@ -56,6 +95,7 @@ public class CashFlowMinimizer {
         panel.add(amountField);
         panel.add(addButton);
         panel.add(minimizeButton);
+        panel.add(importButton);
 
         frame.add(panel, BorderLayout.NORTH);
         frame.add(new JScrollPane(resultArea), BorderLayout.CENTER);
@@ -64,66 +104,183 @@ public class CashFlowMinimizer {
         addButton.addActionListener(e -> {
             String payer = payerField.getText().trim();
             String receiver = receiverField.getText().trim();
-            int amount;
+            long amount;
             try {
-                amount = Integer.parseInt(amountField.getText().trim());
+                amount = Long.parseLong(amountField.getText().trim());
                 if (amount <= 0) throw new NumberFormatException();
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(frame, "Enter a valid positive amount.");
                 return;
             }
-            addTransaction(payer, receiver, amount);
+            try {
+                addTransaction(shared, payer, receiver, amount);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(frame, "Unable to save transaction: " + ex.getMessage());
+                return;
+            }
             payerField.setText("");
             receiverField.setText("");
             amountField.setText("");
         });
 
-        // Handle minimizing transactions when the button is clicked
+        // Minimize off the event dispatch thread: the exact settlement can take seconds,
+        // and settle() waits for any import holding the ledger
         minimizeButton.addActionListener(e -> {
-            List<String> minimizedTransactions = minimizeTransactions();
-            List<String> optimizedTransactions = optimizeTransactions(minimizedTransactions);
-            resultArea.setText(String.join("\n", optimizedTransactions));
+            minimizeButton.setEnabled(false);
+            importButton.setEnabled(false);
+            resultArea.setText("Minimizing...");
+            ledgerUsers++; // Released in done(); the window holds a reference, so the ledger is open
+            new SwingWorker<List<String>, Void>() {
+                @Override
+                protected List<String> doInBackground() {
+                    Settlements minimizedTransactions = shared.settle();
+                    Settlements optimizedTransactions = optimizeTransactions(minimizedTransactions);
+                    return optimizedTransactions.describe(shared::nameOf, MAX_DISPLAYED);
+                }
+
+                @Override
+                protected void done() {
+                    releaseLedger();
+                    minimizeButton.setEnabled(true);
+                    importButton.setEnabled(true);
+                    try {
+                        resultArea.setText(String.join("\n", get()));
+                    } catch (Exception ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        resultArea.setText("Error minimizing: " + cause.getMessage());
+                    }
+                }
+            }.execute();
+        });
+
+        // Stream transactions from a CSV file off the event dispatch thread
+        importButton.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            if (fileChooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            File file = fileChooser.getSelectedFile();
+            importButton.setEnabled(false);
+            minimizeButton.setEnabled(false);
+            resultArea.setText("Importing " + file.getName() + "...");
+            ledgerUsers++; // Released in done(), so closing the window cannot cut the import short
+            new SwingWorker<Long, Void>() {
+                private long startNanos = System.nanoTime();
+
+                @Override
+                protected Long doInBackground() throws IOException {
+                    // Parse into a private Ledger, then log and apply the net balances as one batch
+                    Ledger batch = new Ledger();
+                    long records;
+                    try (InputStream in = new FileInputStream(file)) {
+                        records = batch.ingestCsv(in);
+                    }
+                    shared.applyBatch(batch);
+                    return records;
+                }
+
+                @Override
+                protected void done() {
+                    releaseLedger();
+                    importButton.setEnabled(true);
+                    minimizeButton.setEnabled(true);
+                    try {
+                        long records = get();
+                        resultArea.setText(String.format("Imported %,d transactions in %.1f ms (%,d people).",
+                                records, (System.nanoTime() - startNanos) / 1e6, shared.size()));
+                    } catch (Exception ex) {
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        resultArea.setText("Error importing file: " + cause.getMessage());
+                    }
+                }
+            }.execute();
         });
 
         frame.setVisible(true);
     }
 
     /**
-     * Adds a transaction to the balance map.
+     * Returns the shared ledger, opening it if no window or worker holds it (EDT only).
+     * Each call must be matched by releaseLedger().
+     */
+    private static ConcurrentLedger acquireLedger() throws IOException {
+        if (ledger == null) {
+            if (ledgerCloser != null) {
+                // Reopened right after the last user finished: the old ledger still holds the directory
+                try {
+                    ledgerCloser.join();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while the previous ledger was closing");
+                }
+                ledgerCloser = null;
+            }
+            ledger = new ConcurrentLedger(Paths.get(DATA_DIRECTORY), true);
+        }
+        ledgerUsers++;
+        return ledger;
+    }
+
+    /**
+     * Drops one reference to the shared ledger (EDT only). The last one snapshots the
+     * balances, so the next start does not replay the whole log, and closes it off the EDT.
+     */
+    private static void releaseLedger() {
+        if (--ledgerUsers > 0) {
+            return;
+        }
+        ConcurrentLedger closing = ledger;
+        ledger = null;
+        ledgerCloser = new Thread(() -> {
+            try {
+                closing.close();
+            } catch (IOException ex) {
+                System.err.println("Unable to snapshot ledger: " + ex.getMessage());
+            }
+        }, "ledger-close");
+        ledgerCloser.setDaemon(false); // The JVM waits for the snapshot
+        ledgerCloser.start();
+    }
+
+    /**
+     * Adds a transaction to the ledger.
+     * @param ledger   Ledger to record the transaction in.
      * @param payer    Person who is paying.
      * @param receiver Person who is receiving.
      * @param amount   Amount transferred.
+     * @throws IOException If the transaction could not be written to the log.
      */
-    private static void addTransaction(String payer, String receiver, int amount) {
-        balanceMap.put(payer, balanceMap.getOrDefault(payer, 0) - amount);
-        balanceMap.put(receiver, balanceMap.getOrDefault(receiver, 0) + amount);
+    private static void addTransaction(ConcurrentLedger ledger, String payer, String receiver, long amount) throws IOException {
+        ledger.addTransaction(payer, receiver, amount);
     }
 
     /**
      * Minimizes the number of transactions using a min-max heap approach.
-     * @return List of minimized transactions.
+     * @param ledger Ledger holding the net balance of every person.
+     * @return Minimized transactions.
      */
-    private static List<String> minimizeTransactions() {
-        PriorityQueue<Person> creditors = new PriorityQueue<>((a, b) -> b.amount - a.amount);
-        PriorityQueue<Person> debtors = new PriorityQueue<>(Comparator.comparingInt(a -> a.amount));
+    static Settlements minimizeTransactions(Ledger ledger) {
+        PriorityQueue<Person> creditors = new PriorityQueue<>((a, b) -> Long.compare(b.amount, a.amount));
+        PriorityQueue<Person> debtors = new PriorityQueue<>(Comparator.comparingLong(a -> a.amount));
 
         // Categorize people as creditors or debtors based on their balances
-        for (Map.Entry<String, Integer> entry : balanceMap.entrySet()) {
-            if (entry.getValue() > 0) {
-                creditors.add(new Person(entry.getKey(), entry.getValue()));
-            } else if (entry.getValue() < 0) {
-                debtors.add(new Person(entry.getKey(), -entry.getValue()));
+        for (int id = 0; id < ledger.size(); id++) {
+            long balance = ledger.balanceOf(id);
+            if (balance > 0) {
+                creditors.add(new Person(id, balance));
+            } else if (balance < 0) {
+                debtors.add(new Person(id, -balance));
             }
         }
 
-        List<String> result = new ArrayList<>();
+        Settlements result = new Settlements(Math.max(0, creditors.size() + debtors.size() - 1));
         // Settle debts using a greedy approach
         while (!debtors.isEmpty() && !creditors.isEmpty()) {
             Person debtor = debtors.poll();
             Person creditor = creditors.poll();
 
-            int minAmount = Math.min(debtor.amount, creditor.amount);
-            result.add(debtor.name + " pays " + minAmount + " to " + creditor.name);
+            long minAmount = Math.min(debtor.amount, creditor.amount);
+            result.add(debtor.id, creditor.id, minAmount);
 
             debtor.amount -= minAmount;
             creditor.amount -= minAmount;
@@ -140,36 +297,239 @@ public class CashFlowMinimizer {
     }
 
     /**
-     * Optimizes the transactions by combining redundant payments.
+     * Settles all balances with two pointers over debtors and creditors sorted once.
+     * Produces at most (people with a non-zero balance - 1) payments, like the heap
+     * version, but without repeated poll/re-add or any per-payment allocation.
+     * @param ledger Ledger holding the net balance of every person.
+     * @return Minimized transactions.
+     */
+    static Settlements settleSorted(Ledger ledger) {
+        int debtorCount = 0;
+        int creditorCount = 0;
+        for (int id = 0; id < ledger.size(); id++) {
+            long balance = ledger.balanceOf(id);
+            if (balance < 0) {
+                debtorCount++;
+            } else if (balance > 0) {
+                creditorCount++;
+            }
+        }
+
+        // Split into primitive (id, amount) arrays, amounts stored as positive values
+        int[] debtorIds = new int[debtorCount];
+        long[] debts = new long[debtorCount];
+        int[] creditorIds = new int[creditorCount];
+        long[] credits = new long[creditorCount];
+        int d = 0;
+        int c = 0;
+        for (int id = 0; id < ledger.size(); id++) {
+            long balance = ledger.balanceOf(id);
+            if (balance < 0) {
+                debtorIds[d] = id;
+                debts[d++] = -balance;
+            } else if (balance > 0) {
+                creditorIds[c] = id;
+                credits[c++] = balance;
+            }
+        }
+        Settlements result = new Settlements(Math.max(0, debtorCount + creditorCount - 1));
+        settlePool(debtorIds, debts, debtorCount, creditorIds, credits, creditorCount, result);
+        return result;
+    }
+
+    /**
+     * Sorts one pool of debtors and creditors and settles it with two pointers.
+     * The amount arrays are consumed (sorted and reduced to zero); the pool must be balanced.
+     * @param out Settlements to append the payments to.
+     */
+    static void settlePool(int[] debtorIds, long[] debts, int debtorCount,
+                           int[] creditorIds, long[] credits, int creditorCount, Settlements out) {
+        sortDescending(debts, debtorIds, debtorCount);
+        sortDescending(credits, creditorIds, creditorCount);
+
+        int d = 0;
+        int c = 0;
+        while (d < debtorCount && c < creditorCount) {
+            long minAmount = Math.min(debts[d], credits[c]);
+            out.add(debtorIds[d], creditorIds[c], minAmount);
+            debts[d] -= minAmount;
+            credits[c] -= minAmount;
+            // Advance past whoever is now settled (both when the amounts matched)
+            if (debts[d] == 0) {
+                d++;
+            }
+            if (credits[c] == 0) {
+                c++;
+            }
+        }
+    }
+
+    /**
+     * In-place heapsort of parallel arrays by amount, largest first.
+     * Heapsort keeps the sort allocation-free with a guaranteed O(n log n).
+     */
+    static void sortDescending(long[] amounts, int[] ids, int n) {
+        // Build a min-heap so that repeatedly moving the minimum to the end yields descending order
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(amounts, ids, i, n);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            swap(amounts, ids, 0, end);
+            siftDown(amounts, ids, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] amounts, int[] ids, int i, int n) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < n && amounts[left] < amounts[smallest]) {
+                smallest = left;
+            }
+            if (right < n && amounts[right] < amounts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(amounts, ids, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(long[] amounts, int[] ids, int i, int j) {
+        long amount = amounts[i];
+        amounts[i] = amounts[j];
+        amounts[j] = amount;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    /**
+     * Optimizes the transactions by combining redundant payments: repeated payments
+     * between the same two people are merged, and opposite payments cancel out.
      * @param transactions The minimized transactions.
-     * @return The final optimized transaction list.
+     * @return The final optimized transactions.
      */
-    private static List<String> optimizeTransactions(List<String> transactions) {
-        Map<String, Integer> finalBalances = new HashMap<>();
-        for (String transaction : transactions) {
-            String[] parts = transaction.split(" ");
-            String payer = parts[0];
-            int amount = Integer.parseInt(parts[2]);
-            String receiver = parts[4];
-            finalBalances.put(payer, finalBalances.getOrDefault(payer, 0) - amount);
-            finalBalances.put(receiver, finalBalances.getOrDefault(receiver, 0) + amount);
-        }
-
-        return minimizeTransactions();
+    static Settlements optimizeTransactions(Settlements transactions) {
+        // Net amount per unordered pair, keyed by (smaller id, larger id)
+        Map<Long, Long> pairTotals = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            int payer = transactions.payer(i);
+            int receiver = transactions.receiver(i);
+            long amount = transactions.amount(i);
+            if (payer > receiver) { // Store as a payment from the smaller id, negated if reversed
+                int swap = payer;
+                payer = receiver;
+                receiver = swap;
+                amount = -amount;
+            }
+            pairTotals.merge(((long) payer << 32) | receiver, amount, Long::sum);
+        }
+        if (pairTotals.size() == transactions.size()) {
+            return transactions; // Nothing to combine
+        }
+
+        Settlements result = new Settlements(pairTotals.size());
+        for (Map.Entry<Long, Long> entry : pairTotals.entrySet()) {
+            int low = (int) (entry.getKey() >>> 32);
+            int high = (int) (long) entry.getKey();
+            long amount = entry.getValue();
+            if (amount > 0) {
+                result.add(low, high, amount);
+            } else if (amount < 0) {
+                result.add(high, low, -amount);
+            }
+        }
+        return result;
     }
 
     /**
      * Helper class to store person and their net balance.
      */
     static class Person {
-        String name;
-        int amount;
+        int id;
+        long amount;
 
-        Person(String name, int amount) {
-            this.name = name;
+        Person(int id, long amount) {
+            this.id = id;
             this.amount = amount;
         }
     }
+
+    /**
+     * Structured list of payments stored as primitive (payer, receiver, amount) triples.
+     * Payers and receivers are Ledger ids; names are only looked up for display.
+     */
+    static final class Settlements {
+        private int[] payers;
+        private int[] receivers;
+        private long[] amounts;
+        private int size;
+
+        Settlements(int capacity) {
+            payers = new int[capacity];
+            receivers = new int[capacity];
+            amounts = new long[capacity];
+        }
+
+        void add(int payer, int receiver, long amount) {
+            if (size == payers.length) {
+                int capacity = Math.max(8, size * 2);
+                payers = Arrays.copyOf(payers, capacity);
+                receivers = Arrays.copyOf(receivers, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            payers[size] = payer;
+            receivers[size] = receiver;
+            amounts[size] = amount;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int payer(int i) {
+            return payers[i];
+        }
+
+        int receiver(int i) {
+            return receivers[i];
+        }
+
+        long amount(int i) {
+            return amounts[i];
+        }
+
+        /**
+         * Formats one payment as "payer pays amount to receiver".
+         */
+        String describe(int i, Ledger ledger) {
+            return describe(i, ledger::nameOf);
+        }
+
+        String describe(int i, IntFunction<String> names) {
+            return names.apply(payers[i]) + " pays " + amounts[i] + " to " + names.apply(receivers[i]);
+        }
+
+        /**
+         * Formats up to limit payments, followed by a summary line if some were left out.
+         */
+        List<String> describe(IntFunction<String> names, int limit) {
+            int shown = Math.min(size, limit);
+            List<String> lines = new ArrayList<>(shown + 1);
+            for (int i = 0; i < shown; i++) {
+                lines.add(describe(i, names));
+            }
+            if (shown < size) {
+                lines.add(String.format("... and %,d more payments", size - shown));
+            }
+            return lines;
+        }
+    }
 }
 
 /*Alice pays Bob $50.
@@ -0,0 +1,821 @@
+import java.io.Closeable; // Ledger owns files and a flusher thread
+import java.io.IOException; // Errors raised by the log and snapshot files
+import java.nio.ByteBuffer; // Binary log records
+import java.nio.channels.FileChannel; // Appending and syncing log segments
+import java.nio.channels.FileLock; // One open ledger per directory
+import java.nio.channels.OverlappingFileLockException; // Directory already locked by this JVM
+import java.nio.charset.StandardCharsets; // Names are stored as UTF-8
+import java.nio.file.DirectoryStream; // Listing log segments
+import java.nio.file.Files; // File creation, moves and deletes
+import java.nio.file.Path; // Locations of the log and snapshot
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList; // Recovered names and segment lists
+import java.util.Arrays; // Growing the account table
+import java.util.Collections;
+import java.util.List;
+import java.util.Random; // Synthetic load for the benchmark
+import java.util.concurrent.ConcurrentHashMap; // Name lookups without a global lock
+import java.util.concurrent.ConcurrentLinkedQueue; // Accounts changed since the last settlement
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder; // Contention-free per-account balances
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock; // Writer stripes and the log lock
+import java.util.zip.CRC32; // Detects torn or corrupt log batches
+
+/**
+ * Concurrent Ledger - thread-safe, persistent balance store for the Cash Flow Minimizer.
+ *
+ * 1. Balances - one LongAdder per account, so many writer threads can update
+ *    the same account without contending on a single cache line.
+ * 2. Write-ahead log - every change is appended to a binary log before it is
+ *    acknowledged. A single flusher thread writes whatever has accumulated as one
+ *    CRC-protected batch and fsyncs it, so concurrent writers share each fsync
+ *    (group commit) and throughput grows with the number of writers.
+ * 3. Snapshots - snapshot() writes all balances to a file and starts a new log
+ *    segment, so restart only replays the log written since the last snapshot.
+ * 4. Settlement - settle() copies only the accounts that changed since the previous
+ *    call into a cached Ledger and reuses the previous result when nothing did. Any
+ *    change still re-settles every balance: the ledger does not track which people
+ *    are connected, so it cannot tell which payments a change leaves untouched.
+ *
+ * Writers hold one of STRIPES locks while logging and applying a change; snapshot()
+ * and settle() take every stripe to see a consistent set of balances. A lock file
+ * keeps a second ledger (in this or another process) from opening the same directory.
+ *
+ * Benchmark: java ConcurrentLedger --bench [directory] [records]
+ */
+final class ConcurrentLedger implements Closeable {
+    private static final int STRIPES = 16; // Power of two
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOCK_FILE = "ledger.lock";
+    private static final int SNAPSHOT_MAGIC = 0x4C454447; // "LEDG"
+
+    // Log record types
+    private static final byte RECORD_NAME = 1; // id, name
+    private static final byte RECORD_TRANSFER = 2; // payer id, receiver id, amount
+    private static final byte RECORD_BATCH = 3; // count, then count x (id, signed delta)
+
+    private final Path directory;
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock; // Held until close
+    private final WriteAheadLog log;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Object createLock = new Object(); // Serializes new accounts
+    private final ConcurrentHashMap<String, Account> byName = new ConcurrentHashMap<>();
+    private volatile Account[] accounts = new Account[1024]; // Indexed by id
+    private volatile int size;
+    private final ConcurrentLinkedQueue<Account> dirty = new ConcurrentLinkedQueue<>();
+
+    // Settlement cache and lifecycle, guarded by this
+    private final Ledger settledBalances = new Ledger();
+    private CashFlowMinimizer.Settlements settlements = new CashFlowMinimizer.Settlements(0);
+    private boolean closed;
+
+    /**
+     * Opens (or creates) a ledger stored in the given directory, replaying the
+     * latest snapshot and any log written after it.
+     * @param directory Directory holding snapshot.bin and the wal-*.log segments.
+     * @param fsync     True to wait for fsync before acknowledging each write.
+     * @throws IOException If the files cannot be read, or another ledger has the directory open.
+     */
+    ConcurrentLedger(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null; // Held by another ledger in this JVM
+            }
+            if (lock == null) {
+                throw new IOException("Ledger directory is already in use: " + directory);
+            }
+            directoryLock = lock;
+            long nextGeneration = recover();
+            log = new WriteAheadLog(directory, nextGeneration, fsync);
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close(); // Also releases the lock
+            throw e;
+        }
+    }
+
+    /**
+     * Records that payer paid amount to receiver. Returns once the change is
+     * in the log (and synced, when fsync is enabled).
+     */
+    void addTransaction(String payer, String receiver, long amount) throws IOException {
+        Account from = account(payer);
+        Account to = account(receiver);
+        long sequence;
+        ReentrantLock stripe = stripe();
+        stripe.lock();
+        try {
+            sequence = log.appendTransfer(from.id, to.id, amount);
+            from.add(-amount, dirty);
+            to.add(amount, dirty);
+        } finally {
+            stripe.unlock();
+        }
+        log.awaitDurable(sequence);
+    }
+
+    /**
+     * Applies the net balances of a whole batch (e.g. a CSV import) atomically:
+     * a snapshot or settlement sees either all of it or none of it, and so does
+     * recovery, because the deltas are logged as one record in one CRC frame.
+     */
+    void applyBatch(Ledger batch) throws IOException {
+        int count = 0;
+        for (int id = 0; id < batch.size(); id++) {
+            if (batch.balanceOf(id) != 0) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        Account[] targets = new Account[count];
+        long[] deltas = new long[count];
+        int[] ids = new int[count];
+        int n = 0;
+        for (int id = 0; id < batch.size(); id++) {
+            if (batch.balanceOf(id) != 0) {
+                targets[n] = account(batch.nameOf(id)); // Names are logged before the batch
+                ids[n] = targets[n].id;
+                deltas[n++] = batch.balanceOf(id);
+            }
+        }
+        long sequence;
+        ReentrantLock stripe = stripe();
+        stripe.lock();
+        try {
+            sequence = log.appendBatch(ids, deltas);
+            for (int i = 0; i < count; i++) {
+                targets[i].add(deltas[i], dirty);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        log.awaitDurable(sequence);
+    }
+
+    long balanceOf(String name) {
+        Account account = byName.get(name);
+        return account == null ? 0 : account.balance.sum();
+    }
+
+    String nameOf(int id) {
+        return accounts[id].name;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Computes settlements for the current balances. Only accounts changed since
+     * the previous call are re-read; if none changed, the previous result is returned,
+     * otherwise every balance is settled again.
+     */
+    synchronized CashFlowMinimizer.Settlements settle() {
+        boolean changed = false;
+        lockAllStripes();
+        try {
+            int count = size; // Read before the table: size is published after it
+            Account[] table = accounts;
+            for (int id = settledBalances.size(); id < count; id++) {
+                settledBalances.idOf(table[id].name); // Ids are assigned in the same order
+            }
+            Account account;
+            while ((account = dirty.poll()) != null) {
+                account.dirty.set(false);
+                settledBalances.setBalance(account.id, account.balance.sum());
+                changed = true;
+            }
+        } finally {
+            unlockAllStripes();
+        }
+        if (changed) {
+            settlements = ZeroSumSettlement.settle(settledBalances);
+        }
+        return settlements;
+    }
+
+    /**
+     * Writes every balance to snapshot.bin and deletes the log it replaces.
+     */
+    synchronized void snapshot() throws IOException {
+        String[] names;
+        long[] balances;
+        long generation;
+        synchronized (createLock) {
+            lockAllStripes();
+            try {
+                // No writer can run here, so the new segment starts exactly at this state
+                generation = log.rotate();
+                int count = size;
+                Account[] table = accounts;
+                names = new String[count];
+                balances = new long[count];
+                for (int id = 0; id < count; id++) {
+                    names[id] = table[id].name;
+                    balances[id] = table[id].balance.sum();
+                }
+            } finally {
+                unlockAllStripes();
+            }
+        }
+
+        // Write outside the locks: write to a temporary file, sync, then atomically replace
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(generation).putInt(names.length);
+            for (int id = 0; id < names.length; id++) {
+                byte[] name = names[id].getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < name.length + 12) {
+                    drain(buffer, out);
+                    if (buffer.capacity() < name.length + 12) {
+                        buffer = ByteBuffer.allocate(name.length + 12);
+                    }
+                }
+                buffer.putInt(name.length).put(name).putLong(balances[id]);
+            }
+            drain(buffer, out);
+            out.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        for (long old : WriteAheadLog.generations(directory)) {
+            if (old < generation) {
+                Files.deleteIfExists(WriteAheadLog.segment(directory, old));
+            }
+        }
+    }
+
+    /**
+     * Takes a snapshot and stops the log.
+     */
+    @Override
+    public void close() throws IOException {
+        close(true);
+    }
+
+    synchronized void close(boolean takeSnapshot) throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (takeSnapshot) {
+                snapshot();
+            }
+        } finally {
+            try {
+                log.close();
+            } finally {
+                directoryLock.release();
+                lockChannel.close();
+            }
+        }
+    }
+
+    private Account account(String name) throws IOException {
+        Account account = byName.get(name);
+        if (account != null) {
+            return account;
+        }
+        synchronized (createLock) {
+            account = byName.get(name);
+            if (account == null) {
+                int id = size;
+                log.appendName(id, name); // Logged before any transfer that uses the id
+                account = register(id, name, 0L);
+            }
+            return account;
+        }
+    }
+
+    private Account register(int id, String name, long balance) {
+        Account account = new Account(id, name);
+        Account[] table = accounts;
+        if (id == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[id] = account;
+        accounts = table;
+        size = id + 1;
+        byName.put(name, account);
+        if (balance != 0) {
+            account.add(balance, dirty); // Recovered balance
+        }
+        return account;
+    }
+
+    private ReentrantLock stripe() {
+        return stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+    }
+
+    private void lockAllStripes() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Loads the snapshot and replays later log segments into primitive arrays,
+     * then registers the accounts.
+     * @return Generation number for the next log segment.
+     */
+    private long recover() throws IOException {
+        List<String> names = new ArrayList<>();
+        long[] balances = new long[1024];
+        long firstGeneration = 0;
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+            if (in.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a ledger snapshot: " + snapshot);
+            }
+            firstGeneration = in.getLong();
+            int count = in.getInt();
+            balances = new long[Math.max(1024, count)];
+            for (int id = 0; id < count; id++) {
+                byte[] name = new byte[in.getInt()];
+                in.get(name);
+                names.add(new String(name, StandardCharsets.UTF_8));
+                balances[id] = in.getLong();
+            }
+        }
+
+        long nextGeneration = firstGeneration;
+        List<Long> generations = WriteAheadLog.generations(directory);
+        for (int i = 0; i < generations.size(); i++) {
+            long generation = generations.get(i);
+            if (generation < firstGeneration) {
+                continue; // Already covered by the snapshot
+            }
+            boolean last = i == generations.size() - 1;
+            balances = replay(WriteAheadLog.segment(directory, generation), last, names, balances);
+            nextGeneration = generation + 1;
+        }
+
+        for (int id = 0; id < names.size(); id++) {
+            register(id, names.get(id), balances[id]);
+        }
+        return nextGeneration;
+    }
+
+    private static long[] replay(Path segment, boolean last, List<String> names, long[] balances) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= 8) {
+            int start = in.position();
+            int length = in.getInt();
+            int checksum = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                return truncate(segment, last, start, balances);
+            }
+            crc.reset();
+            crc.update(in.array(), in.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                return truncate(segment, last, start, balances);
+            }
+            int end = in.position() + length;
+            while (in.position() < end) {
+                byte type = in.get();
+                if (type == RECORD_NAME) {
+                    int id = in.getInt();
+                    byte[] name = new byte[in.getShort() & 0xFFFF];
+                    in.get(name);
+                    if (id != names.size()) {
+                        throw new IOException("Out of order account id " + id + " in " + segment);
+                    }
+                    names.add(new String(name, StandardCharsets.UTF_8));
+                    if (id == balances.length) {
+                        balances = Arrays.copyOf(balances, balances.length * 2);
+                    }
+                } else if (type == RECORD_TRANSFER) {
+                    int payer = in.getInt();
+                    int receiver = in.getInt();
+                    long amount = in.getLong();
+                    balances[payer] -= amount;
+                    balances[receiver] += amount;
+                } else if (type == RECORD_BATCH) {
+                    int count = in.getInt();
+                    for (int i = 0; i < count; i++) {
+                        int id = in.getInt();
+                        balances[id] += in.getLong();
+                    }
+                } else {
+                    throw new IOException("Unknown record type " + type + " in " + segment);
+                }
+            }
+        }
+        if (in.hasRemaining()) {
+            return truncate(segment, last, in.position(), balances);
+        }
+        return balances;
+    }
+
+    /**
+     * Drops a torn batch at the end of the newest segment (a crash mid-write).
+     * Damage anywhere else means the log is corrupt.
+     */
+    private static long[] truncate(Path segment, boolean last, long validLength, long[] balances) throws IOException {
+        if (!last) {
+            throw new IOException("Corrupt log segment " + segment);
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength);
+        }
+        return balances;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * One account: its id, name and striped balance.
+     */
+    static final class Account {
+        final int id;
+        final String name;
+        final LongAdder balance = new LongAdder();
+        final AtomicBoolean dirty = new AtomicBoolean(); // Queued for the next settlement
+
+        Account(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        void add(long delta, ConcurrentLinkedQueue<Account> dirtyQueue) {
+            balance.add(delta);
+            // Plain read first: hot accounts are usually already queued
+            if (!dirty.get() && dirty.compareAndSet(false, true)) {
+                dirtyQueue.add(this);
+            }
+        }
+    }
+
+    /**
+     * Append-only log with group commit. Writers copy records into a shared buffer
+     * under a short lock; the flusher thread swaps the buffer out, writes it as one
+     * [length][crc32][records] batch, optionally fsyncs, and wakes the writers
+     * waiting for that batch.
+     */
+    static final class WriteAheadLog implements Closeable {
+        private final Path directory;
+        private final boolean fsync;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition work = lock.newCondition(); // Signals the flusher: records pending or closing
+        private final Condition progress = lock.newCondition(); // Signals waiters: a batch was written
+        private final Thread flusher;
+        private final CRC32 crc = new CRC32();
+
+        // Guarded by lock
+        private FileChannel channel;
+        private long generation;
+        private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+        private ByteBuffer spare = ByteBuffer.allocate(1 << 16);
+        private long appended; // Sequence number of the last appended record
+        private long durable; // Sequence number of the last record written (and synced)
+        private boolean flushing;
+        private boolean closed;
+        private IOException failure;
+        private long batches; // Number of batches written, for the benchmark
+
+        WriteAheadLog(Path directory, long generation, boolean fsync) throws IOException {
+            this.directory = directory;
+            this.generation = generation;
+            this.fsync = fsync;
+            this.channel = open(directory, generation);
+            flusher = new Thread(this::flushLoop, "ledger-wal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+
+        long appendName(int id, String name) throws IOException {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("Name too long: " + name);
+            }
+            lock.lock();
+            try {
+                ByteBuffer buffer = reserve(7 + bytes.length);
+                buffer.put(RECORD_NAME).putInt(id).putShort((short) bytes.length).put(bytes);
+                return published();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long appendTransfer(int payer, int receiver, long amount) throws IOException {
+            lock.lock();
+            try {
+                reserve(17).put(RECORD_TRANSFER).putInt(payer).putInt(receiver).putLong(amount);
+                return published();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Appends all deltas as one record. The flusher writes a record in a single
+         * batch, so after a crash either every delta is replayed or none is.
+         */
+        long appendBatch(int[] ids, long[] deltas) throws IOException {
+            lock.lock();
+            try {
+                ByteBuffer buffer = reserve(5 + 12 * ids.length);
+                buffer.put(RECORD_BATCH).putInt(ids.length);
+                for (int i = 0; i < ids.length; i++) {
+                    buffer.putInt(ids[i]).putLong(deltas[i]);
+                }
+                return published();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Blocks until the record with the given sequence number has been written.
+         */
+        void awaitDurable(long sequence) throws IOException {
+            lock.lock();
+            try {
+                while (durable < sequence && failure == null) {
+                    progress.awaitUninterruptibly();
+                }
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed", failure);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Flushes and syncs the current segment, then starts a new one.
+         * The caller must prevent appends while this runs.
+         * @return Generation number of the new segment.
+         */
+        long rotate() throws IOException {
+            lock.lock();
+            try {
+                while ((pending.position() > 0 || flushing) && failure == null) {
+                    work.signal();
+                    progress.awaitUninterruptibly();
+                }
+                if (failure != null) {
+                    throw new IOException("Write-ahead log failed", failure);
+                }
+                channel.force(true);
+                channel.close();
+                generation++;
+                channel = open(directory, generation);
+                return generation;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long batches() {
+            lock.lock();
+            try {
+                return batches;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                closed = true;
+                work.signal();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+            if (failure != null) {
+                throw new IOException("Write-ahead log failed", failure);
+            }
+        }
+
+        private ByteBuffer reserve(int bytes) throws IOException {
+            if (closed || failure != null) {
+                throw new IOException("Write-ahead log is closed");
+            }
+            if (pending.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            return pending;
+        }
+
+        private long published() {
+            appended++;
+            if (!flushing) {
+                work.signal(); // Wake the flusher; otherwise it picks this up after the current batch
+            }
+            return appended;
+        }
+
+        private void flushLoop() {
+            while (true) {
+                ByteBuffer batch;
+                long batchEnd;
+                FileChannel target;
+                lock.lock();
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        work.awaitUninterruptibly();
+                    }
+                    if (pending.position() == 0) {
+                        return; // Closed and fully drained
+                    }
+                    // Swap buffers so writers keep appending while this batch is written
+                    batch = pending;
+                    pending = spare;
+                    spare = batch;
+                    batchEnd = appended;
+                    target = channel;
+                    flushing = true;
+                } finally {
+                    lock.unlock();
+                }
+
+                IOException error = null;
+                try {
+                    writeBatch(batch, target);
+                } catch (IOException e) {
+                    error = e;
+                }
+
+                lock.lock();
+                try {
+                    flushing = false;
+                    batches++;
+                    if (error != null) {
+                        failure = error;
+                    } else {
+                        durable = batchEnd;
+                    }
+                    progress.signalAll();
+                    if (error != null) {
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void writeBatch(ByteBuffer batch, FileChannel target) throws IOException {
+            batch.flip();
+            crc.reset();
+            crc.update(batch.array(), 0, batch.limit());
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putInt(batch.limit()).putInt((int) crc.getValue()).flip();
+            ByteBuffer[] frame = {header, batch};
+            while (header.hasRemaining() || batch.hasRemaining()) {
+                target.write(frame);
+            }
+            if (fsync) {
+                target.force(false);
+            }
+            batch.clear();
+        }
+
+        static Path segment(Path directory, long generation) {
+            return directory.resolve(String.format("wal-%016d.log", generation));
+        }
+
+        /**
+         * Lists the generation numbers of the log segments in a directory, oldest first.
+         */
+        static List<Long> generations(Path directory) throws IOException {
+            List<Long> generations = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    generations.add(Long.parseLong(name.substring(4, name.length() - 4)));
+                }
+            }
+            Collections.sort(generations);
+            return generations;
+        }
+
+        private static FileChannel open(Path directory, long generation) throws IOException {
+            return FileChannel.open(segment(directory, generation), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Benchmark: ingest throughput with 1, 2, 4 and 8 writer threads (fsync on),
+     * then restart time from the log alone and from a snapshot.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || !args[0].equals("--bench")) {
+            System.err.println("Usage: java ConcurrentLedger --bench [directory] [records]");
+            return;
+        }
+        Path base = Paths.get(args.length >= 2 ? args[1] : "ledger-bench");
+        int records = args.length >= 3 ? Integer.parseInt(args[2]) : 200_000;
+        int people = 10_000;
+
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            Path directory = base.resolve("threads-" + threads);
+            deleteRecursively(directory);
+            try (ConcurrentLedger ledger = new ConcurrentLedger(directory, true)) {
+                for (int p = 0; p < people; p++) {
+                    ledger.account("p" + p); // Create accounts up front so the run measures transfers
+                }
+                long batchesBefore = ledger.log.batches();
+                Thread[] writers = new Thread[threads];
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    final int seed = t;
+                    writers[t] = new Thread(() -> {
+                        Random random = new Random(seed);
+                        try {
+                            for (int i = 0; i < records / threads; i++) {
+                                int payer = random.nextInt(people);
+                                int receiver = (payer + 1 + random.nextInt(people - 1)) % people;
+                                ledger.addTransaction("p" + payer, "p" + receiver, 1 + random.nextInt(1000));
+                            }
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+                    writers[t].start();
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+                long elapsed = System.nanoTime() - start;
+                long batches = ledger.log.batches() - batchesBefore;
+                int applied = records / threads * threads;
+                System.out.printf("%d writer(s): %,d transfers in %.1f ms = %,.0f transfers/s, %.1f records per fsync%n",
+                        threads, applied, elapsed / 1e6, applied * 1e9 / elapsed, (double) applied / Math.max(1, batches));
+                if (threads == 8) {
+                    ledger.close(false); // Leave only the log behind to measure replay
+                }
+            }
+        }
+
+        Path directory = base.resolve("threads-8");
+        long start = System.nanoTime();
+        ConcurrentLedger replayed = new ConcurrentLedger(directory, true);
+        System.out.printf("Restart from log: %,d accounts in %.1f ms%n", replayed.size(), (System.nanoTime() - start) / 1e6);
+        replayed.close(); // Writes a snapshot
+        start = System.nanoTime();
+        ConcurrentLedger restored = new ConcurrentLedger(directory, true);
+        System.out.printf("Restart from snapshot: %,d accounts in %.1f ms%n", restored.size(), (System.nanoTime() - start) / 1e6);
+        restored.close();
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(path)) {
+                for (Path child : children) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,18 @@
+import java.util.Map; // Requests are JSON objects
+
+/**
+ * Engine - one headless algorithm behind a JSON-shaped request and response.
+ * Requests are parsed JSON objects; results are maps, lists, strings, numbers and
+ * booleans that Json.write can serialize. Engines keep no state between calls, so
+ * one instance serves any number of threads.
+ */
+interface Engine {
+    String name();
+
+    /**
+     * @param request Parsed JSON object.
+     * @return JSON-serializable result.
+     * @throws IllegalArgumentException If the request is malformed.
+     */
+    Object run(Map<String, Object> request);
+}
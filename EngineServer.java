@@ -0,0 +1,370 @@
+import com.sun.net.httpserver.HttpExchange; // One HTTP request and its response
+import com.sun.net.httpserver.HttpServer; // The JDK's built-in HTTP server (jdk.httpserver)
+import java.io.ByteArrayOutputStream; // Reading request bodies
+import java.io.IOException; // Network errors
+import java.io.InputStream; // Request bodies
+import java.io.OutputStream; // Response bodies
+import java.net.InetSocketAddress; // Listening address
+import java.net.URI; // Load-test targets
+import java.net.http.HttpClient; // Load-test client
+import java.net.http.HttpRequest; // Load-test requests
+import java.net.http.HttpResponse; // Load-test responses
+import java.nio.charset.StandardCharsets; // JSON is UTF-8
+import java.util.ArrayList; // Batch results
+import java.util.LinkedHashMap; // Metrics output
+import java.util.List; // Batch items
+import java.util.Map; // JSON objects
+import java.util.concurrent.ArrayBlockingQueue; // Bounded work queue
+import java.util.concurrent.RejectedExecutionException; // Queue full
+import java.util.concurrent.ThreadPoolExecutor; // Worker pool
+import java.util.concurrent.TimeUnit; // Pool keep-alive
+import java.util.concurrent.atomic.AtomicInteger; // Worker thread names
+import java.util.concurrent.atomic.LongAdder; // Request counters
+
+/**
+ * Engine Server - local HTTP/JSON service for every engine in Engines.
+ *
+ *   POST /engines/{name}   body: request object     -> result object
+ *   POST /batch            body: [{"engine": name, "request": {...}}, ...]
+ *                          -> [{"result": ...} or {"error": "..."}, ...], run as one unit of work
+ *   GET  /engines          -> engine names
+ *   GET  /metrics          -> per-endpoint counts and latency percentiles (microseconds),
+ *                             with every unknown path counted under "other"
+ *
+ * Threads: the HTTP dispatcher thread only routes a request and hands it to a fixed pool of
+ * workers through a bounded queue. When the queue is full the request is answered straight
+ * away with 503 and Retry-After instead of piling up, so latency stays bounded under overload.
+ * Latency is measured from routing to the last byte written, queueing included.
+ *
+ * Server:    java EngineServer [port] [workers] [queue]
+ * Load test: java EngineServer --bench [clients] [seconds] [batch size]
+ */
+final class EngineServer {
+    private static final int MAX_BODY = 8 << 20; // Bytes
+    private static final int MAX_BATCH = 1024; // Items
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    // Statistics per known path, fixed at startup so clients cannot add entries; read-only afterwards
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final Endpoint other = new Endpoint("other"); // Every unknown path
+
+    /**
+     * Counters and latency for one path.
+     */
+    static final class Endpoint {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder(); // 4xx and 5xx except rejections
+        final LongAdder rejected = new LongAdder(); // 503 because the queue was full
+        final SolverMetrics.Histogram latency;
+
+        Endpoint(String path) {
+            latency = new SolverMetrics.Histogram(path, "ns");
+        }
+    }
+
+    EngineServer(InetSocketAddress address, int workerCount, int queueCapacity) throws IOException {
+        for (String path : new String[]{"/engines", "/batch", "/metrics"}) {
+            endpoints.put(path, new Endpoint(path));
+        }
+        for (Engine engine : Engines.all()) {
+            String path = "/engines/" + engine.name();
+            endpoints.put(path, new Endpoint(path));
+        }
+        endpoints.put("other", other);
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "engine-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        server = HttpServer.create(address, 1024);
+        server.setExecutor(null); // Handlers run on the dispatcher thread and must not block
+        server.createContext("/engines", this::route);
+        server.createContext("/batch", this::route);
+        server.createContext("/metrics", this::route);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Runs on the dispatcher thread: cheap GETs are answered here, everything else is queued.
+     */
+    private void route(HttpExchange exchange) {
+        long start = System.nanoTime();
+        String path = exchange.getRequestURI().getPath();
+        Endpoint endpoint = endpoints.getOrDefault(path, other);
+        endpoint.requests.increment();
+        String method = exchange.getRequestMethod();
+
+        if (method.equals("GET") && path.equals("/metrics")) {
+            respond(exchange, endpoint, start, 200, metrics());
+            return;
+        }
+        if (method.equals("GET") && path.equals("/engines")) {
+            List<String> names = new ArrayList<>();
+            for (Engine engine : Engines.all()) {
+                names.add(engine.name());
+            }
+            respond(exchange, endpoint, start, 200, names);
+            return;
+        }
+        if (!method.equals("POST")) {
+            respond(exchange, endpoint, start, 405, error("Use POST"));
+            return;
+        }
+        Engine engine = null;
+        if (path.startsWith("/engines/")) {
+            engine = Engines.get(path.substring("/engines/".length()));
+            if (engine == null) {
+                respond(exchange, endpoint, start, 404, error("Unknown engine"));
+                return;
+            }
+        } else if (!path.equals("/batch")) {
+            respond(exchange, endpoint, start, 404, error("Unknown path"));
+            return;
+        }
+
+        Engine target = engine;
+        try {
+            workers.execute(() -> handle(exchange, endpoint, start, target));
+        } catch (RejectedExecutionException e) {
+            endpoint.rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, endpoint, start, 503, error("Server busy"));
+        }
+    }
+
+    /**
+     * Runs on a worker: reads the body, runs one engine or a whole batch, writes the answer.
+     */
+    private void handle(HttpExchange exchange, Endpoint endpoint, long start, Engine engine) {
+        try {
+            Object request = Json.parse(readBody(exchange.getRequestBody()));
+            Object result = engine != null ? engine.run(asObject(request)) : runBatch(request);
+            respond(exchange, endpoint, start, 200, result);
+        } catch (BodyTooLargeException e) {
+            respond(exchange, endpoint, start, 413, error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, endpoint, start, 400, error(e.getMessage()));
+        } catch (IOException e) {
+            exchange.close(); // Client went away
+        } catch (RuntimeException | StackOverflowError e) {
+            respond(exchange, endpoint, start, 500, error(e.toString()));
+        } catch (Error e) {
+            respond(exchange, endpoint, start, 500, error(e.toString())); // Still answer, then let it kill the worker
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the items of a batch one after another on this worker. Errors are reported per item:
+     * the message of a bad request, or the exception for an engine failure.
+     */
+    private static List<Object> runBatch(Object request) {
+        if (!(request instanceof List)) {
+            throw new IllegalArgumentException("A batch must be an array");
+        }
+        List<?> items = (List<?>) request;
+        if (items.size() > MAX_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH + " items per batch");
+        }
+        List<Object> results = new ArrayList<>(items.size());
+        for (Object item : items) {
+            Map<String, Object> outcome = new LinkedHashMap<>();
+            try {
+                Map<String, Object> call = asObject(item);
+                Engine engine = Engines.get(Engines.string(call, "engine"));
+                if (engine == null) {
+                    throw new IllegalArgumentException("Unknown engine");
+                }
+                outcome.put("result", engine.run(Engines.object(call, "request")));
+            } catch (IllegalArgumentException e) {
+                outcome.put("error", e.getMessage());
+            } catch (RuntimeException | StackOverflowError e) {
+                outcome.put("error", e.toString());
+            }
+            results.add(outcome);
+        }
+        return results;
+    }
+
+    private void respond(HttpExchange exchange, Endpoint endpoint, long start, int status, Object body) {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            exchange.close();
+        }
+        if (status >= 400 && status != 503) {
+            endpoint.errors.increment();
+        }
+        endpoint.latency.record(System.nanoTime() - start);
+    }
+
+    private Map<String, Object> metrics() {
+        Map<String, Object> all = new LinkedHashMap<>();
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", endpoint.requests.sum());
+            stats.put("errors", endpoint.errors.sum());
+            stats.put("rejected", endpoint.rejected.sum());
+            stats.put("p50_us", endpoint.latency.percentile(50) / 1000);
+            stats.put("p99_us", endpoint.latency.percentile(99) / 1000);
+            stats.put("max_us", endpoint.latency.max() / 1000);
+            all.put(entry.getKey(), stats);
+        }
+        Map<String, Object> queue = new LinkedHashMap<>();
+        queue.put("queued", workers.getQueue().size());
+        queue.put("capacity", workers.getQueue().size() + workers.getQueue().remainingCapacity());
+        queue.put("active", workers.getActiveCount());
+        all.put("workers", queue);
+        return all;
+    }
+
+    private static final class BodyTooLargeException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() {
+            super("Request body larger than " + MAX_BODY + " bytes");
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            if (body.size() + n > MAX_BODY) {
+                throw new BodyTooLargeException();
+            }
+            body.write(buffer, 0, n);
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return error;
+    }
+
+    /**
+     * Sample requests for the load test, one per engine.
+     */
+    private static final String[][] SAMPLES = {
+        {"dijkstra", "{\"start\":\"A\",\"end\":\"E\"}"},
+        {"sudoku", "{\"grid\":[[5,3,0,0,7,0,0,0,0],[6,0,0,1,9,5,0,0,0],[0,9,8,0,0,0,0,6,0],"
+                + "[8,0,0,0,6,0,0,0,3],[4,0,0,8,0,3,0,0,1],[7,0,0,0,2,0,0,0,6],"
+                + "[0,6,0,0,0,0,2,8,0],[0,0,0,4,1,9,0,0,5],[0,0,0,0,8,0,0,7,9]]}"},
+        {"cashflow", "{\"transactions\":[{\"from\":\"A\",\"to\":\"B\",\"amount\":100},"
+                + "{\"from\":\"B\",\"to\":\"C\",\"amount\":60},{\"from\":\"C\",\"to\":\"A\",\"amount\":30},"
+                + "{\"from\":\"D\",\"to\":\"A\",\"amount\":45}]}"},
+        {"huffman", "{\"text\":\"the quick brown fox jumps over the lazy dog, again and again\"}"},
+        {"snake", "{\"seed\":7,\"width\":8,\"height\":8}"},
+    };
+
+    /**
+     * Load test on localhost: client threads send single requests (or batches), round-robin
+     * over the engines, then the throughput and the server's own metrics are printed.
+     */
+    private static void bench(int clients, int seconds, int batchSize) throws Exception {
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        EngineServer server = new EngineServer(new InetSocketAddress("127.0.0.1", 0), workerCount, 64);
+        server.start();
+        String base = "http://127.0.0.1:" + server.port();
+        HttpClient client = HttpClient.newHttpClient();
+
+        // A batch body holds batchSize calls cycling through the samples
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < batchSize; i++) {
+            String[] sample = SAMPLES[i % SAMPLES.length];
+            batch.append(i == 0 ? "" : ",").append("{\"engine\":\"").append(sample[0])
+                    .append("\",\"request\":").append(sample[1]).append('}');
+        }
+        String batchBody = batch.append(']').toString();
+
+        LongAdder ok = new LongAdder();
+        LongAdder busy = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = offset; System.nanoTime() < deadline; i++) {
+                    String[] sample = SAMPLES[i % SAMPLES.length];
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(batchSize > 1
+                                    ? base + "/batch" : base + "/engines/" + sample[0]))
+                            .POST(HttpRequest.BodyPublishers.ofString(batchSize > 1 ? batchBody : sample[1]))
+                            .build();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+                        if (status == 200) {
+                            ok.add(batchSize > 1 ? batchSize : 1);
+                        } else if (status == 503) {
+                            busy.increment();
+                            Thread.sleep(1); // Back off as Retry-After asks, briefly
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (IOException e) {
+                        failed.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%d clients, %d workers, queue 64, batch %d, %d s: %,.0f calls/s, %,d rejected (503), %,d failed%n",
+                clients, workerCount, batchSize, seconds, ok.sum() / (double) seconds, busy.sum(), failed.sum());
+        System.out.println(Json.write(server.metrics()).replace("},\"", "},\n\""));
+        server.stop();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && args[0].equals("--bench")) {
+            int clients = args.length >= 2 ? Integer.parseInt(args[1]) : 64;
+            int seconds = args.length >= 3 ? Integer.parseInt(args[2]) : 10;
+            int batchSize = args.length >= 4 ? Integer.parseInt(args[3]) : 1;
+            bench(clients, seconds, batchSize);
+            return;
+        }
+        int port = args.length >= 1 ? Integer.parseInt(args[0]) : 8080;
+        int workerCount = args.length >= 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queue = args.length >= 3 ? Integer.parseInt(args[2]) : 256;
+        EngineServer server = new EngineServer(new InetSocketAddress("127.0.0.1", port), workerCount, queue);
+        server.start();
+        System.out.println("Engine server on http://127.0.0.1:" + server.port()
+                + " (" + workerCount + " workers, queue " + queue + ")");
+    }
+}
@@ -0,0 +1,329 @@
+import java.nio.charset.StandardCharsets; // Input size of Huffman requests
+import java.util.ArrayList; // Result lists
+import java.util.Base64; // Packed Huffman bits in JSON
+import java.util.Collection; // Listing the engines
+import java.util.HashMap; // Graphs built from requests
+import java.util.LinkedHashMap; // Results keep their field order
+import java.util.List; // JSON arrays
+import java.util.Map; // JSON objects
+
+/**
+ * Engines - registry of the five projects' algorithms, usable without their Swing windows.
+ *
+ *   dijkstra  {"start": "A", "end": "E", "graph": {"A": {"B": 5}, ...}}   graph defaults to the GUI's map
+ *   sudoku    {"grid": [[5,3,0,...], ...]}                              0 for an empty cell
+ *   cashflow  {"transactions": [{"from": "A", "to": "B", "amount": 100}, ...]}
+ *   huffman   {"text": "..."}                                         encoded is the packed bits in base64
+ *   snake     {"seed": 1, "width": 24, "height": 24, "moves": [1, 1, 2, ...]}   autopilot plays without moves
+ */
+final class Engines {
+    private static final Map<String, Engine> ENGINES = new LinkedHashMap<>();
+
+    static {
+        register(new DijkstraEngine());
+        register(new SudokuEngine());
+        register(new CashFlowEngine());
+        register(new HuffmanEngine());
+        register(new SnakeEngineAdapter());
+    }
+
+    private Engines() {
+    }
+
+    private static void register(Engine engine) {
+        ENGINES.put(engine.name(), engine);
+    }
+
+    /**
+     * @return The engine with this name, or null.
+     */
+    static Engine get(String name) {
+        return ENGINES.get(name);
+    }
+
+    static Collection<Engine> all() {
+        return ENGINES.values();
+    }
+
+    /**
+     * Shortest path with MapNavigator's Dijkstra.
+     */
+    static final class DijkstraEngine implements Engine {
+        @Override
+        public String name() {
+            return "dijkstra";
+        }
+
+        @Override
+        public Object run(Map<String, Object> request) {
+            String start = string(request, "start");
+            String end = string(request, "end");
+            Map<String, Map<String, Integer>> graph = request.containsKey("graph")
+                    ? graph(object(request, "graph")) : MapNavigator.sampleGraph();
+            if (!graph.containsKey(start) || !graph.containsKey(end)) {
+                throw new IllegalArgumentException("Unknown location: " + (graph.containsKey(start) ? end : start));
+            }
+            List<String> path = MapNavigator.dijkstra(graph, start, end);
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (!path.get(0).equals(start)) {
+                result.put("path", List.of()); // Only end: no route
+                result.put("distance", -1);
+                return result;
+            }
+            long distance = 0;
+            for (int i = 1; i < path.size(); i++) {
+                distance += graph.get(path.get(i - 1)).get(path.get(i));
+            }
+            result.put("path", path);
+            result.put("distance", distance);
+            return result;
+        }
+
+        private static Map<String, Map<String, Integer>> graph(Map<String, Object> json) {
+            Map<String, Map<String, Integer>> graph = new HashMap<>();
+            for (Map.Entry<String, Object> node : json.entrySet()) {
+                if (!(node.getValue() instanceof Map)) {
+                    throw new IllegalArgumentException("Neighbours of " + node.getKey() + " must be an object");
+                }
+                Map<String, Integer> edges = new HashMap<>();
+                for (Map.Entry<?, ?> edge : ((Map<?, ?>) node.getValue()).entrySet()) {
+                    long weight = number(edge.getValue(), "weight");
+                    if (weight < 0 || weight > Integer.MAX_VALUE / 2) {
+                        throw new IllegalArgumentException("Weight out of range: " + weight);
+                    }
+                    edges.put((String) edge.getKey(), (int) weight);
+                }
+                graph.put(node.getKey(), edges);
+            }
+            // Locations that only appear as neighbours still need an entry
+            for (Map<String, Integer> edges : new ArrayList<>(graph.values())) {
+                for (String neighbour : edges.keySet()) {
+                    graph.putIfAbsent(neighbour, Map.of());
+                }
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * Backtracking Sudoku solver, bounded by a node budget instead of the GUI's timeout.
+     */
+    static final class SudokuEngine implements Engine {
+        static final long MAX_NODES = 20_000_000L;
+
+        @Override
+        public String name() {
+            return "sudoku";
+        }
+
+        @Override
+        public Object run(Map<String, Object> request) {
+            List<Object> rows = list(request, "grid");
+            if (rows.size() != 9) {
+                throw new IllegalArgumentException("grid must have 9 rows");
+            }
+            int[][] board = new int[9][9];
+            for (int row = 0; row < 9; row++) {
+                if (!(rows.get(row) instanceof List) || ((List<?>) rows.get(row)).size() != 9) {
+                    throw new IllegalArgumentException("Row " + row + " must have 9 cells");
+                }
+                List<?> cells = (List<?>) rows.get(row);
+                for (int col = 0; col < 9; col++) {
+                    long value = number(cells.get(col), "cell");
+                    if (value < 0 || value > 9) {
+                        throw new IllegalArgumentException("Cells must be 0-9");
+                    }
+                    board[row][col] = (int) value;
+                }
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (!SudokuSolverGUI.hasValidGivens(board)) {
+                result.put("solved", false);
+                result.put("reason", "conflicting givens");
+                return result;
+            }
+            long[] nodes = new long[1];
+            boolean solved = SudokuSolverGUI.solveSudoku(board, b -> ++nodes[0] <= MAX_NODES);
+            result.put("solved", solved);
+            if (solved) {
+                List<int[]> grid = new ArrayList<>();
+                for (int[] row : board) {
+                    grid.add(row);
+                }
+                result.put("grid", grid);
+            } else {
+                result.put("reason", nodes[0] > MAX_NODES ? "node budget exceeded" : "no solution");
+            }
+            result.put("nodes", Math.min(nodes[0], MAX_NODES));
+            return result;
+        }
+    }
+
+    /**
+     * Fewest payments settling a list of debts, group by group.
+     */
+    static final class CashFlowEngine implements Engine {
+        static final long MAX_AMOUNT = 1L << 50; // Keeps every balance sum far from overflow
+        // Largest group solved exactly; above it a short request body could cost a 2^25 DP,
+        // so bigger groups take the triples-and-pool heuristic instead
+        static final int EXACT_LIMIT = 16;
+
+        @Override
+        public String name() {
+            return "cashflow";
+        }
+
+        @Override
+        public Object run(Map<String, Object> request) {
+            Ledger ledger = new Ledger();
+            for (Object item : list(request, "transactions")) {
+                if (!(item instanceof Map)) {
+                    throw new IllegalArgumentException("Each transaction must be an object");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> transaction = (Map<String, Object>) item;
+                long amount = number(transaction.get("amount"), "amount");
+                if (amount <= 0 || amount > MAX_AMOUNT) {
+                    throw new IllegalArgumentException("Amounts must be between 1 and " + MAX_AMOUNT);
+                }
+                try {
+                    ledger.addTransaction(string(transaction, "from"), string(transaction, "to"), amount);
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Transactions overflow a balance");
+                }
+            }
+            CashFlowMinimizer.Settlements settlements = GroupSettlement.settleAll(ledger, EXACT_LIMIT);
+            List<Object> payments = new ArrayList<>(settlements.size());
+            for (int i = 0; i < settlements.size(); i++) {
+                Map<String, Object> payment = new LinkedHashMap<>();
+                payment.put("from", ledger.nameOf(settlements.payer(i)));
+                payment.put("to", ledger.nameOf(settlements.receiver(i)));
+                payment.put("amount", settlements.amount(i));
+                payments.add(payment);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("payments", payments);
+            result.put("people", ledger.size());
+            return result;
+        }
+    }
+
+    /**
+     * Huffman encoding of a text with FileZipperGUI's HuffmanTree.
+     */
+    static final class HuffmanEngine implements Engine {
+        @Override
+        public String name() {
+            return "huffman";
+        }
+
+        @Override
+        public Object run(Map<String, Object> request) {
+            String text = string(request, "text");
+            if (text.isEmpty()) {
+                throw new IllegalArgumentException("text must not be empty");
+            }
+            if (text.indexOf('\0') >= 0) {
+                throw new IllegalArgumentException("text must not contain U+0000"); // The tree's internal-node marker
+            }
+            // Packed coding also handles a text of one distinct character (zero bits per symbol)
+            HuffmanTree tree = new HuffmanTree(text);
+            byte[] packed = tree.encodePacked(text);
+            long bits = 0;
+            for (int i = 0; i < text.length(); i++) {
+                bits += tree.codeLength(text.charAt(i));
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("encoded", Base64.getEncoder().encodeToString(packed));
+            result.put("bits", bits);
+            result.put("inputBits", text.getBytes(StandardCharsets.UTF_8).length * 8L);
+            result.put("roundTrip", tree.decodePacked(packed, text.length()).equals(text));
+            return result;
+        }
+    }
+
+    /**
+     * Snake: replays recorded moves, or lets SnakeAutopilot play a whole game.
+     */
+    static final class SnakeEngineAdapter implements Engine {
+        static final int MAX_CELLS = 200 * 200;
+
+        @Override
+        public String name() {
+            return "snake";
+        }
+
+        @Override
+        public Object run(Map<String, Object> request) {
+            long seed = request.containsKey("seed") ? number(request.get("seed"), "seed") : 0;
+            long requestedWidth = request.containsKey("width") ? number(request.get("width"), "width") : 24;
+            long requestedHeight = request.containsKey("height") ? number(request.get("height"), "height") : 24;
+            // Range-check before narrowing: a huge width would otherwise wrap to a small int
+            if (requestedWidth < SnakeEngine.INITIAL_LENGTH + 1 || requestedHeight < 1
+                    || requestedWidth > MAX_CELLS || requestedHeight > MAX_CELLS
+                    || requestedWidth * requestedHeight > MAX_CELLS) {
+                throw new IllegalArgumentException("Board must be at least " + (SnakeEngine.INITIAL_LENGTH + 1)
+                        + " wide and at most " + MAX_CELLS + " cells");
+            }
+            int width = (int) requestedWidth;
+            int height = (int) requestedHeight;
+            SnakeEngine game;
+            if (request.containsKey("moves")) {
+                List<Object> moves = list(request, "moves");
+                byte[] bytes = new byte[moves.size()];
+                for (int i = 0; i < bytes.length; i++) {
+                    long move = number(moves.get(i), "move");
+                    if (move < 0 || move > 3) {
+                        throw new IllegalArgumentException("Moves must be 0-3 (up, right, down, left)");
+                    }
+                    bytes[i] = (byte) move;
+                }
+                game = SnakeEngine.replay(width, height, seed, bytes);
+            } else {
+                game = new SnakeEngine(width, height, seed);
+                SnakeAutopilot.play(game, new SnakeAutopilot(width, height), seed, 4 * width * height);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("score", game.score());
+            result.put("length", game.length());
+            result.put("ticks", game.ticks());
+            result.put("alive", game.isAlive());
+            return result;
+        }
+    }
+
+    // Request field helpers; each throws IllegalArgumentException naming the bad field
+
+    static String string(Map<String, Object> request, String field) {
+        Object value = request.get(field);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(field + " must be a string");
+        }
+        return (String) value;
+    }
+
+    static long number(Object value, String field) {
+        if (!(value instanceof Long)) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+        return (Long) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> list(Map<String, Object> request, String field) {
+        Object value = request.get(field);
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException(field + " must be an array");
+        }
+        return (List<Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> object(Map<String, Object> request, String field) {
+        Object value = request.get(field);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException(field + " must be an object");
+        }
+        return (Map<String, Object>) value;
+    }
+}
@@ -18,7 +18,7 @@ public class FileZipperGUI {
         // Create main application window
         JFrame frame = new JFrame("File Zipper - Huffman Encoder/Decoder");
         frame.setSize(600, 400);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // See ProjectLauncher
         frame.setLayout(new BorderLayout());
         
         // Create UI components
@@ -39,6 +39,9 @@ public class FileZipperGUI {
         frame.add(new JScrollPane(resultArea), BorderLayout.CENTER);
         
         final File[] selectedFile = {null}; // Array to store selected file
+        // Tree and output of the last compression, so Decompress does not rebuild them
+        final HuffmanTree[] huffmanTree = {null};
+        final String[] compressedData = {null};
         
         // Action listener for selecting a file
         selectFileButton.addActionListener(e -> {
@@ -46,6 +49,8 @@ public class FileZipperGUI {
             int returnValue = fileChooser.showOpenDialog(null);
             if (returnValue == JFileChooser.APPROVE_OPTION) {
                 selectedFile[0] = fileChooser.getSelectedFile();
+                huffmanTree[0] = null; // A new file needs a new tree
+                compressedData[0] = null;
                 resultArea.setText("Selected file: " + selectedFile[0].getName());
             }
         });
@@ -57,9 +62,8 @@ public class FileZipperGUI {
                 return;
             }
             try {
-                HuffmanTree huffmanTree = new HuffmanTree(readFile(selectedFile[0]));
-                String compressedData = huffmanTree.encode(readFile(selectedFile[0]));
-                resultArea.setText("File compressed successfully!\nCompressed Output:\n" + compressedData);
+                compress(selectedFile[0], huffmanTree, compressedData);
+                resultArea.setText("File compressed successfully!\nCompressed Output:\n" + compressedData[0]);
             } catch (IOException ex) {
                 resultArea.setText("Error compressing file.");
             }
@@ -72,8 +76,10 @@ public class FileZipperGUI {
                 return;
             }
             try {
-                HuffmanTree huffmanTree = new HuffmanTree(readFile(selectedFile[0]));
-                String decompressedData = huffmanTree.decode(huffmanTree.encode(readFile(selectedFile[0])));
+                if (huffmanTree[0] == null) {
+                    compress(selectedFile[0], huffmanTree, compressedData); // Decompress before Compress
+                }
+                String decompressedData = huffmanTree[0].decode(compressedData[0]);
                 resultArea.setText("File decompressed successfully!\nDecompressed Output:\n" + decompressedData);
             } catch (IOException ex) {
                 resultArea.setText("Error decompressing file.");
@@ -83,6 +89,13 @@ public class FileZipperGUI {
         frame.setVisible(true);
     }
     
+    // Reads the file once and builds its tree once, keeping both for Decompress
+    private static void compress(File file, HuffmanTree[] huffmanTree, String[] compressedData) throws IOException {
+        String text = readFile(file);
+        huffmanTree[0] = new HuffmanTree(text);
+        compressedData[0] = huffmanTree[0].encode(text);
+    }
+
     // Function to read file content
     private static String readFile(File file) throws IOException {
         StringBuilder fileContent = new StringBuilder();
@@ -95,178 +108,3 @@ public class FileZipperGUI {
         return fileContent.toString();
     }
 }
-
-/**
- * HuffmanTree class for encoding and decoding text using Huffman Compression.
- */
-class HuffmanTree {
-    private final Map<Character, String> huffmanCode = new HashMap<>(); // Map to store Huffman codes
-    private final HuffmanNode root; // Root node of Huffman tree
-    
-    public HuffmanTree(String text) {
-        // Create frequency map of characters in text
-        Map<Character, Integer> frequencyMap = new HashMap<>();
-        for (char c : text.toCharArray()) {
-            frequencyMap.put(c, frequencyMap.getOrDefault(c, 0) + 1);
-        }
-        
-        // Create priority queue (min-heap) based on frequency
-        PriorityQueue<HuffmanNode> queue = new PriorityQueue<>(Comparator.comparingInt(node -> node.frequency));
-        for (var entry : frequencyMap.entrySet()) {
-            queue.add(new HuffmanNode(entry.getKey(), entry.getValue()));
-        }
-        
-        // Build Huffman tree by merging nodes
-        while (queue.size() > 1) {
-            HuffmanNode left = queue.poll();
-            HuffmanNode right = queue.poll();
-            HuffmanNode parent = new HuffmanNode('\0', left.frequency + right.frequency, left, right);
-            queue.add(parent);
-        }
-        
-        root = queue.poll(); // Set root of Huffman tree
-        buildHuffmanCode(root, ""); // Generate Huffman codes
-    }
-    
-    // Recursive function to generate Huffman codes
-    private void buildHuffmanCode(HuffmanNode node, String code) {
-        if (node == null) return;
-        if (node.character != '\0') {
-            huffmanCode.put(node.character, code);
-        }
-        buildHuffmanCode(node.left, code + "0");
-        buildHuffmanCode(node.right, code + "1");
-    }
-    
-    // Function to encode input text using Huffman codes
-    public String encode(String text) {
-        StringBuilder encodedText = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            encodedText.append(huffmanCode.get(c)); // Replace each character with its Huffman code
-        }
-        return encodedText.toString();
-    }
-    
-    // Function to decode encoded text using Huffman tree
-    public String decode(String encodedText) {
-        StringBuilder decodedText = new StringBuilder();
-        HuffmanNode current = root;
-        for (char bit : encodedText.toCharArray()) {
-            current = (bit == '0') ? current.left : current.right;
-            if (current.character != '\0') {
-                decodedText.append(current.character);
-                current = root;
-            }
-        }
-        return decodedText.toString();
-    }
-}
-
-/**
- * HuffmanNode class represents a node in the Huffman tree.
- */
-class HuffmanNode {
-    char character; // Character stored in node
-    int frequency; // Frequency of the character
-    HuffmanNode left, right; // Left and right children of the node
-    
-    public HuffmanNode(char character, int frequency) {
-        this.character = character;
-        this.frequency = frequency;
-    }
-    
-    public HuffmanNode(char character, int frequency, HuffmanNode left, HuffmanNode right) {
-        this.character = character;
-        this.frequency = frequency;
-        this.left = left;
-        this.right = right;
-    }
-}
-
-
-
-// Step 1: Select a File
-// Let's say we select a text file named example.txt, containing the following text:
-
-// hello huffman
-// Step 2: Compression using Huffman Encoding
-// The program reads the file content (hello huffman) and calculates the frequency of each character:
-
-// h -> 2
-// e -> 1
-// l -> 3
-// o -> 1
-// ' ' -> 1
-// u -> 1
-// f -> 2
-// m -> 1
-// a -> 1
-// n -> 1
-// Using this frequency, a Huffman Tree is built, assigning binary codes to each character:
-
-
-// h -> 10
-// e -> 011
-// l -> 00
-// o -> 110
-// ' ' -> 111
-// u -> 0100
-// f -> 0101
-// m -> 0010
-// a -> 0011
-// n -> 101
-
-
-// Step 3: Output (Compressed Binary Data)
-// The original text:
-
-// hello huffman
-// gets converted into the compressed binary:
-
-
-// 10 011 00 00 110 111 10 0100 0101 0101 0010 0011 101
-// (This is displayed in the GUI after clicking the "Compress" button.)
-
-// Step 4: Decompression using Huffman Decoding
-// The program uses the Huffman tree to decode the binary sequence back into:
-
-
-// hello huffman
-// (This is displayed in the GUI after clicking the "Decompress" button.)
-
-// Comparison of Compression Ratio
-// Original text size: 14 characters × 8 bits = 112 bits
-// Compressed text size: ~50-60 bits (depends on character frequencies)
-// Compression ratio: ~50% reduction in size
-
-
-
-
-//What is Huffman Encoding?
-// Huffman Encoding is a greedy algorithm used for lossless data compression. It assigns shorter binary codes to more frequent characters and longer codes to less frequent ones, reducing the total number of bits needed to store data.
-
-// How Huffman Encoding Works:
-// Calculate Character Frequency:
-
-// Count how many times each character appears in the text.
-// Build a Huffman Tree:
-
-// Create a min-heap (priority queue) based on character frequency.
-// Merge two lowest-frequency nodes iteratively until only one node remains (root of Huffman Tree).
-// Assign Binary Codes:
-
-// Traverse the Huffman Tree to generate binary codes for each character.
-// Encode the Text:
-
-// Replace characters in the original text with their corresponding Huffman codes.
-// Decode the Text:
-
-// Use the Huffman Tree to convert binary data back to the original text.
-// Features of Huffman Encoding:
-// ✅ Lossless Compression: No data is lost during compression and decompression.
-// ✅ Efficient for Text Files: Works well for text-based data, like .txt files.
-// ✅ Variable-Length Encoding: Assigns shorter codes to frequent characters, reducing overall size.
-// ✅ Used in Real-World Applications: Found in ZIP compression, JPEG image formats, MP3 encoding, and more.
-// ✅ Based on a Greedy Algorithm: Ensures optimal compression by always merging the smallest nodes first.
-
-
@@ -0,0 +1,125 @@
+import java.util.Arrays; // Ordering groups by size
+import java.util.function.Consumer; // Streams each finished group to the caller
+import java.util.stream.IntStream; // Parallel settlement over the fork/join pool
+
+/**
+ * Group Settlement
+ * Settles every independent group in a Ledger (a trip, a team, ...) on its own, in parallel.
+ *
+ * Two people are in the same group when a chain of transactions connects them.
+ * The Ledger tracks these connected components with a union-find as records are
+ * added, and every transaction stays inside one group, so each group's balances
+ * add up to zero and can be settled without looking at anyone else.
+ *
+ * Steps:
+ * 1. Bucket everyone with a non-zero balance by group with a counting sort over int ids.
+ * 2. Settle the groups in parallel, largest first, with ZeroSumSettlement.
+ * 3. Hand each group's payments to the caller as soon as that group is done.
+ */
+final class GroupSettlement {
+
+    private GroupSettlement() {
+    }
+
+    /**
+     * Payments for one group of people connected by transactions.
+     */
+    static final class Group {
+        final int root; // Ledger id naming the group (its first member)
+        final int members; // People in the group with a non-zero balance
+        final CashFlowMinimizer.Settlements settlements;
+
+        Group(int root, int members, CashFlowMinimizer.Settlements settlements) {
+            this.root = root;
+            this.members = members;
+            this.settlements = settlements;
+        }
+    }
+
+    /**
+     * Settles each group independently and in parallel.
+     * @param ledger Ledger filled through addTransaction or ingestCsv; it must not change meanwhile.
+     * @param sink   Receives each group as soon as it is settled. Called from
+     *               several threads at once, in no particular order.
+     * @return Number of groups settled.
+     */
+    static int settle(Ledger ledger, Consumer<Group> sink) {
+        return settle(ledger, ZeroSumSettlement.EXACT_LIMIT, sink);
+    }
+
+    /**
+     * Settles each group independently and in parallel, solving exactly only
+     * groups of up to exactLimit people (see ZeroSumSettlement).
+     */
+    static int settle(Ledger ledger, int exactLimit, Consumer<Group> sink) {
+        int n = ledger.size();
+
+        // Count the members of each group; groupOf compresses paths, so this stays sequential
+        int[] groupOf = new int[n];
+        int[] start = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            if (ledger.balanceOf(id) != 0) {
+                groupOf[id] = ledger.groupOf(id);
+                start[groupOf[id] + 1]++;
+            }
+        }
+        int groups = 0;
+        for (int root = 0; root < n; root++) {
+            if (start[root + 1] > 0) {
+                groups++;
+            }
+            start[root + 1] += start[root]; // Prefix sums: group root owns members[start[root] .. start[root + 1])
+        }
+
+        // Place every member into its group's slice
+        int[] members = new int[start[n]];
+        int[] next = Arrays.copyOf(start, n);
+        for (int id = 0; id < n; id++) {
+            if (ledger.balanceOf(id) != 0) {
+                members[next[groupOf[id]]++] = id;
+            }
+        }
+
+        // Order by size, largest first, so a big group is not left to start last and set the total latency
+        long[] order = new long[groups];
+        int g = 0;
+        for (int root = 0; root < n; root++) {
+            int size = start[root + 1] - start[root];
+            if (size > 0) {
+                order[g++] = ((long) size << 32) | root;
+            }
+        }
+        Arrays.sort(order);
+
+        int last = groups - 1;
+        IntStream.range(0, groups).parallel().forEach(i -> {
+            int root = (int) order[last - i];
+            CashFlowMinimizer.Settlements settlements =
+                    ZeroSumSettlement.settle(ledger, members, start[root], start[root + 1], exactLimit);
+            sink.accept(new Group(root, start[root + 1] - start[root], settlements));
+        });
+        return groups;
+    }
+
+    /**
+     * Settles every group and gathers all payments into one list.
+     */
+    static CashFlowMinimizer.Settlements settleAll(Ledger ledger) {
+        return settleAll(ledger, ZeroSumSettlement.EXACT_LIMIT);
+    }
+
+    /**
+     * Settles every group, solving exactly only groups of up to exactLimit people.
+     */
+    static CashFlowMinimizer.Settlements settleAll(Ledger ledger, int exactLimit) {
+        CashFlowMinimizer.Settlements all = new CashFlowMinimizer.Settlements(0);
+        settle(ledger, exactLimit, group -> {
+            synchronized (all) {
+                for (int i = 0; i < group.settlements.size(); i++) {
+                    all.add(group.settlements.payer(i), group.settlements.receiver(i), group.settlements.amount(i));
+                }
+            }
+        });
+        return all;
+    }
+}
@@ -0,0 +1,450 @@
+import java.io.IOException; // Reading and writing dictionary files
+import java.nio.charset.StandardCharsets; // Benchmark records are ASCII text
+import java.nio.file.Files; // Dictionary files and CLI inputs
+import java.nio.file.Path; // Dictionary files and CLI inputs
+import java.util.ArrayList; // Benchmark records
+import java.util.Arrays; // Comparing code tables on an id clash
+import java.util.Comparator; // Ordering the heap while training
+import java.util.List; // Benchmark records
+import java.util.Map; // Cache of loaded dictionaries
+import java.util.PriorityQueue; // Merging the lightest subtrees while training
+import java.util.Random; // Seeded benchmark records
+import java.util.concurrent.ConcurrentHashMap; // The cache is shared between threads
+import java.util.zip.CRC32; // Dictionary ids
+
+/**
+ * Huffman Dictionary - a byte-level Huffman code table trained once on a sample corpus
+ * and shared by many small inputs.
+ *
+ * Building a HuffmanTree per input costs a frequency pass and a heap build every time, and
+ * the tree has to travel with the data. For many small, similar records a table trained on
+ * a sample does better on both counts:
+ *
+ * 1. Training - byte frequencies of the samples, plus one for every byte so any input stays
+ *    encodable. Codes are canonical and at most MAX_CODE_BITS long, so the whole table is
+ *    256 code lengths and decoding is a single table lookup per symbol.
+ * 2. Id - the CRC32 of the code lengths. Equal tables get equal ids in every process,
+ *    so a compressed frame only carries the 4-byte id instead of a tree.
+ * 3. Sharing - dictionaries are immutable and interned in a cache by id; frames find
+ *    their table with forId. Any number of threads may use one dictionary at once.
+ * 4. Frames - [int id][varint byte count][bits, MSB first], written through a 64-bit bit buffer.
+ *
+ * Usage:
+ *   java HuffmanDictionary train <dictionary> <sample files...>
+ *   java HuffmanDictionary compress <dictionary> <input> <output>
+ *   java HuffmanDictionary decompress <dictionary> <input> <output>
+ *   java HuffmanDictionary --bench [records]    small records vs a HuffmanTree per record
+ */
+final class HuffmanDictionary {
+    static final int MAX_CODE_BITS = 12; // Decode table of 2^12 entries
+    private static final int DECODE_MASK = (1 << MAX_CODE_BITS) - 1;
+    private static final int MAGIC = 0x48444331; // "HDC1" at the start of a dictionary file
+    private static final int FILE_SIZE = 4 + 256;
+    private static final Map<Integer, HuffmanDictionary> CACHE = new ConcurrentHashMap<>();
+
+    final int id;
+    private final byte[] lengths; // Code length per byte value
+    private final int[] codes; // (canonical code << 4) | length per byte value
+    private final char[] decodeTable; // (byte << 4) | length, indexed by the next MAX_CODE_BITS bits
+
+    private HuffmanDictionary(byte[] lengths) {
+        this.lengths = lengths.clone();
+        // A complete prefix code fills the decode table exactly once
+        long kraft = 0;
+        for (byte length : this.lengths) {
+            if (length < 1 || length > MAX_CODE_BITS) {
+                throw new IllegalArgumentException("Code lengths must be 1-" + MAX_CODE_BITS);
+            }
+            kraft += 1L << (MAX_CODE_BITS - length);
+        }
+        if (kraft != 1L << MAX_CODE_BITS) {
+            throw new IllegalArgumentException("Code lengths do not form a complete prefix code");
+        }
+
+        // Canonical codes: shorter codes first, equal lengths in byte order
+        int[] perLength = new int[MAX_CODE_BITS + 1];
+        for (byte length : this.lengths) {
+            perLength[length]++;
+        }
+        int[] nextCode = new int[MAX_CODE_BITS + 1];
+        int code = 0;
+        for (int length = 1; length <= MAX_CODE_BITS; length++) {
+            code = (code + perLength[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+        codes = new int[256];
+        decodeTable = new char[1 << MAX_CODE_BITS];
+        for (int symbol = 0; symbol < 256; symbol++) {
+            int length = this.lengths[symbol];
+            int symbolCode = nextCode[length]++;
+            codes[symbol] = (symbolCode << 4) | length;
+            // Every table index starting with this code decodes to this symbol
+            int first = symbolCode << (MAX_CODE_BITS - length);
+            int last = (symbolCode + 1) << (MAX_CODE_BITS - length);
+            Arrays.fill(decodeTable, first, last, (char) ((symbol << 4) | length));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(this.lengths);
+        id = (int) crc.getValue();
+    }
+
+    /**
+     * Trains a dictionary on the byte frequencies of the samples.
+     */
+    static HuffmanDictionary train(Iterable<byte[]> samples) {
+        long[] counts = new long[256];
+        for (byte[] sample : samples) {
+            SymbolHistogram.count(sample, 0, sample.length, counts);
+        }
+        return fromCounts(counts);
+    }
+
+    static HuffmanDictionary fromCounts(long[] counts) {
+        long[] weights = new long[256];
+        for (int symbol = 0; symbol < 256; symbol++) {
+            weights[symbol] = counts[symbol] + 1; // Unseen bytes still get a (long) code
+        }
+        byte[] lengths = codeLengths(weights);
+        // Too deep for the decode table: flatten the weights until the tree fits
+        while (maxOf(lengths) > MAX_CODE_BITS) {
+            for (int symbol = 0; symbol < 256; symbol++) {
+                weights[symbol] = (weights[symbol] + 1) >>> 1;
+            }
+            lengths = codeLengths(weights);
+        }
+        return intern(lengths);
+    }
+
+    // Huffman code lengths for 256 weights; leaves are nodes 0-255, merged nodes 256-510
+    private static byte[] codeLengths(long[] weights) {
+        long[] weight = Arrays.copyOf(weights, 511);
+        int[] parent = new int[511];
+        // Ties broken by node number so training is deterministic
+        PriorityQueue<Integer> heap = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(node -> weight[node]).thenComparingInt(node -> node));
+        for (int symbol = 0; symbol < 256; symbol++) {
+            heap.add(symbol);
+        }
+        for (int node = 256; node < 511; node++) {
+            int left = heap.poll();
+            int right = heap.poll();
+            weight[node] = weight[left] + weight[right];
+            parent[left] = node;
+            parent[right] = node;
+            heap.add(node);
+        }
+        // Parents are numbered after their children, so one pass from the root sets every depth
+        int[] depth = new int[511];
+        for (int node = 509; node >= 0; node--) {
+            depth[node] = depth[parent[node]] + 1;
+        }
+        byte[] lengths = new byte[256];
+        for (int symbol = 0; symbol < 256; symbol++) {
+            lengths[symbol] = (byte) Math.min(depth[symbol], Byte.MAX_VALUE);
+        }
+        return lengths;
+    }
+
+    private static int maxOf(byte[] lengths) {
+        int max = 0;
+        for (byte length : lengths) {
+            max = Math.max(max, length);
+        }
+        return max;
+    }
+
+    // Returns the cached dictionary with these code lengths, adding it if it is new
+    private static HuffmanDictionary intern(byte[] lengths) {
+        HuffmanDictionary dictionary = new HuffmanDictionary(lengths);
+        HuffmanDictionary cached = CACHE.putIfAbsent(dictionary.id, dictionary);
+        if (cached == null) {
+            return dictionary;
+        }
+        if (!Arrays.equals(cached.lengths, dictionary.lengths)) {
+            throw new IllegalStateException("Two different dictionaries share id " + idString(dictionary.id));
+        }
+        return cached;
+    }
+
+    /**
+     * @return The trained or loaded dictionary with this id.
+     * @throws IllegalArgumentException If no such dictionary has been loaded in this JVM.
+     */
+    static HuffmanDictionary forId(int id) {
+        HuffmanDictionary dictionary = CACHE.get(id);
+        if (dictionary == null) {
+            throw new IllegalArgumentException("Unknown dictionary " + idString(id));
+        }
+        return dictionary;
+    }
+
+    static String idString(int id) {
+        return String.format("%08x", id);
+    }
+
+    void save(Path file) throws IOException {
+        byte[] bytes = new byte[FILE_SIZE];
+        writeInt(bytes, 0, MAGIC);
+        System.arraycopy(lengths, 0, bytes, 4, 256);
+        Files.write(file, bytes);
+    }
+
+    /**
+     * Reads a dictionary written by save and adds it to the cache.
+     * @throws IllegalArgumentException If the file is not a valid dictionary.
+     */
+    static HuffmanDictionary load(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != FILE_SIZE || readInt(bytes, 0) != MAGIC) {
+            throw new IllegalArgumentException(file + " is not a Huffman dictionary");
+        }
+        return intern(Arrays.copyOfRange(bytes, 4, FILE_SIZE));
+    }
+
+    /**
+     * Compresses one input into a frame tagged with this dictionary's id.
+     * @throws IllegalArgumentException If the worst-case frame would not fit in an array.
+     */
+    byte[] compress(byte[] input) {
+        // Header, plus at most MAX_CODE_BITS per byte, plus a spare word for the last flush
+        long capacity = 4 + 5 + ((long) input.length * MAX_CODE_BITS + 7) / 8 + 4;
+        if (capacity > Integer.MAX_VALUE - 8) { // Inputs over about 1.4 GB
+            throw new IllegalArgumentException("Input too large for one frame: " + input.length + " bytes");
+        }
+        byte[] out = new byte[(int) capacity];
+        writeInt(out, 0, id);
+        int pos = writeVarint(out, 4, input.length);
+        long buffer = 0; // Pending bits are the low 'bits' bits
+        int bits = 0;
+        for (byte b : input) {
+            int code = codes[b & 0xFF];
+            int length = code & 15;
+            buffer = (buffer << length) | (code >>> 4);
+            bits += length;
+            if (bits >= 32) { // At most 31 + MAX_CODE_BITS pending, well inside 64
+                bits -= 32;
+                writeInt(out, pos, (int) (buffer >>> bits));
+                pos += 4;
+            }
+        }
+        while (bits >= 8) {
+            bits -= 8;
+            out[pos++] = (byte) (buffer >>> bits);
+        }
+        if (bits > 0) {
+            out[pos++] = (byte) (buffer << (8 - bits)); // Zero padding
+        }
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.HUFFMAN_SYMBOLS_ENCODED.add(input.length);
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Decompresses a frame with the cached dictionary named in its header.
+     * @throws IllegalArgumentException If the frame is malformed or its dictionary is not loaded.
+     */
+    static byte[] decompress(byte[] frame) {
+        if (frame.length < 5) {
+            throw new IllegalArgumentException("Frame too short");
+        }
+        return forId(readInt(frame, 0)).decode(frame);
+    }
+
+    private byte[] decode(byte[] frame) {
+        // Varint byte count; every byte takes at least one bit, which bounds the count
+        long count = 0;
+        int pos = 4;
+        for (int shift = 0; ; shift += 7) {
+            if (pos >= frame.length || shift > 28) {
+                throw new IllegalArgumentException("Bad length in frame header");
+            }
+            int b = frame[pos++];
+            count |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        if (count > (frame.length - pos) * 8L) {
+            throw new IllegalArgumentException("Frame is truncated");
+        }
+        if (count > Integer.MAX_VALUE - 8) { // Fits the bit bound of a large frame, but not an array
+            throw new IllegalArgumentException("Frame too large: " + count + " bytes");
+        }
+        byte[] out = new byte[(int) count];
+        long buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < out.length; i++) {
+            if (bits < MAX_CODE_BITS) {
+                while (bits <= 56 && pos < frame.length) {
+                    buffer = (buffer << 8) | (frame[pos++] & 0xFF);
+                    bits += 8;
+                }
+            }
+            // Peek the next MAX_CODE_BITS bits, zero-filled past the end of the frame
+            int peek = bits >= MAX_CODE_BITS
+                    ? (int) (buffer >>> (bits - MAX_CODE_BITS)) & DECODE_MASK
+                    : (int) (buffer << (MAX_CODE_BITS - bits)) & DECODE_MASK;
+            char entry = decodeTable[peek];
+            int length = entry & 15;
+            if (length > bits) {
+                throw new IllegalArgumentException("Frame is truncated");
+            }
+            bits -= length;
+            out[i] = (byte) (entry >>> 4);
+        }
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.HUFFMAN_SYMBOLS_DECODED.add(out.length);
+        }
+        return out;
+    }
+
+    private static void writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] in, int pos) {
+        return (in[pos] & 0xFF) << 24 | (in[pos + 1] & 0xFF) << 16 | (in[pos + 2] & 0xFF) << 8 | (in[pos + 3] & 0xFF);
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    @Override
+    public String toString() {
+        return "HuffmanDictionary " + idString(id);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 1 && args[0].equals("--bench")) {
+            bench(args.length >= 2 ? Integer.parseInt(args[1]) : 100_000);
+        } else if (args.length >= 3 && args[0].equals("train")) {
+            List<byte[]> samples = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) {
+                samples.add(Files.readAllBytes(Path.of(args[i])));
+            }
+            HuffmanDictionary dictionary = train(samples);
+            dictionary.save(Path.of(args[1]));
+            System.out.println("Trained dictionary " + idString(dictionary.id) + " -> " + args[1]);
+        } else if (args.length == 4 && args[0].equals("compress")) {
+            HuffmanDictionary dictionary = load(Path.of(args[1]));
+            byte[] input = Files.readAllBytes(Path.of(args[2]));
+            byte[] frame = dictionary.compress(input);
+            Files.write(Path.of(args[3]), frame);
+            System.out.printf("%,d -> %,d bytes%n", input.length, frame.length);
+        } else if (args.length == 4 && args[0].equals("decompress")) {
+            load(Path.of(args[1]));
+            Files.write(Path.of(args[3]), decompress(Files.readAllBytes(Path.of(args[2]))));
+        } else {
+            System.err.println("Usage: java HuffmanDictionary train <dictionary> <sample files...>");
+            System.err.println("       java HuffmanDictionary compress|decompress <dictionary> <input> <output>");
+            System.err.println("       java HuffmanDictionary --bench [records]");
+        }
+    }
+
+    // Small similar records, e.g. one line of an access log each
+    private static List<byte[]> records(int count, long seed) {
+        String[] actions = {"login", "logout", "view", "search", "checkout", "update"};
+        int[] statuses = {200, 200, 200, 201, 204, 304, 404, 500};
+        Random random = new Random(seed);
+        List<byte[]> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String record = "{\"ts\":" + (1_700_000_000L + i * 7L + random.nextInt(7))
+                    + ",\"user\":\"user" + random.nextInt(50_000)
+                    + "\",\"action\":\"" + actions[random.nextInt(actions.length)]
+                    + "\",\"status\":" + statuses[random.nextInt(statuses.length)]
+                    + ",\"ms\":" + random.nextInt(2_000) + "}";
+            records.add(record.getBytes(StandardCharsets.US_ASCII));
+        }
+        return records;
+    }
+
+    private static void bench(int count) {
+        HuffmanDictionary dictionary = train(records(2_000, 1L)); // Trained on other records than it compresses
+        List<byte[]> records = records(count, 2L);
+        long inputBytes = 0;
+        for (byte[] record : records) {
+            inputBytes += record.length;
+        }
+        System.out.printf("%,d records, %,d bytes (%.1f bytes each), dictionary %s%n",
+                count, inputBytes, (double) inputBytes / count, idString(dictionary.id));
+
+        for (int round = 1; round <= 3; round++) {
+            // Per record: HuffmanTree build + encode, then decode. The record would have to carry
+            // its code table too: one byte for the symbol count, then symbol + code length pairs
+            long treeBytes = 0;
+            long start = System.nanoTime();
+            List<String> encoded = new ArrayList<>(count);
+            List<HuffmanTree> trees = new ArrayList<>(count);
+            for (byte[] record : records) {
+                String text = new String(record, StandardCharsets.ISO_8859_1);
+                HuffmanTree tree = new HuffmanTree(text);
+                String bits = tree.encode(text);
+                trees.add(tree);
+                encoded.add(bits);
+                treeBytes += varintSize(record.length) + 1 + 2L * distinctBytes(record) + (bits.length() + 7) / 8;
+            }
+            long treeEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                if (trees.get(i).decode(encoded.get(i)).length() != records.get(i).length) {
+                    throw new AssertionError("HuffmanTree round trip failed");
+                }
+            }
+            long treeDecode = System.nanoTime() - start;
+
+            long dictionaryBytes = 0;
+            start = System.nanoTime();
+            List<byte[]> frames = new ArrayList<>(count);
+            for (byte[] record : records) {
+                byte[] frame = dictionary.compress(record);
+                frames.add(frame);
+                dictionaryBytes += frame.length;
+            }
+            long dictionaryEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                if (!Arrays.equals(decompress(frames.get(i)), records.get(i))) {
+                    throw new AssertionError("Dictionary round trip failed");
+                }
+            }
+            long dictionaryDecode = System.nanoTime() - start;
+
+            System.out.printf("Round %d%n", round);
+            System.out.printf("  tree per record: ratio %.3f  compress %,9.0f records/s  decompress %,9.0f records/s%n",
+                    (double) treeBytes / inputBytes, count * 1e9 / treeEncode, count * 1e9 / treeDecode);
+            System.out.printf("  dictionary:      ratio %.3f  compress %,9.0f records/s  decompress %,9.0f records/s%n",
+                    (double) dictionaryBytes / inputBytes, count * 1e9 / dictionaryEncode, count * 1e9 / dictionaryDecode);
+        }
+    }
+
+    private static int distinctBytes(byte[] record) {
+        boolean[] seen = new boolean[256];
+        int distinct = 0;
+        for (byte b : record) {
+            if (!seen[b & 0xFF]) {
+                seen[b & 0xFF] = true;
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,341 @@
+import java.util.*; // Maps and the priority queue used to build the tree
+
+/**
+ * HuffmanTree class for encoding and decoding text using Huffman Compression.
+ */
+class HuffmanTree {
+    private static final int ENCODE_CHUNK = 4096; // Chars copied out of the text at a time by encodePacked
+
+    private final Map<Character, String> huffmanCode = new HashMap<>(); // Map to store Huffman codes
+    private final long[] latin1Codes = new long[256]; // (code << 6) | length for chars below 256, for packed encoding
+    private final HuffmanNode root; // Root node of Huffman tree
+    
+    public HuffmanTree(String text) {
+        SolverMetrics.HuffmanEvent event = new SolverMetrics.HuffmanEvent();
+        event.begin();
+        long startNanos = SolverMetrics.ENABLED ? System.nanoTime() : 0L;
+
+        // Create frequency map of characters in text. Chars below 256 go through the
+        // interleaved histogram kernel; only the rest need the boxed map updates
+        Map<Character, Integer> frequencyMap = new HashMap<>();
+        int[] latin1Counts = new int[256];
+        if (SymbolHistogram.countLatin1(text, latin1Counts) > 0) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= 256) {
+                    frequencyMap.merge(c, 1, Integer::sum);
+                }
+            }
+        }
+        for (int c = 0; c < 256; c++) {
+            if (latin1Counts[c] > 0) {
+                frequencyMap.put((char) c, latin1Counts[c]);
+            }
+        }
+        
+        // Create priority queue (min-heap) based on frequency
+        PriorityQueue<HuffmanNode> queue = new PriorityQueue<>(Comparator.comparingInt(node -> node.frequency));
+        for (var entry : frequencyMap.entrySet()) {
+            queue.add(new HuffmanNode(entry.getKey(), entry.getValue()));
+        }
+        
+        // Build Huffman tree by merging nodes
+        while (queue.size() > 1) {
+            HuffmanNode left = queue.poll();
+            HuffmanNode right = queue.poll();
+            HuffmanNode parent = new HuffmanNode('\0', left.frequency + right.frequency, left, right);
+            queue.add(parent);
+            if (SolverMetrics.ENABLED) {
+                SolverMetrics.HUFFMAN_HEAP_OPS.add(3); // Two polls and one insert per merge
+            }
+        }
+        
+        root = queue.poll(); // Set root of Huffman tree
+        buildHuffmanCode(root, ""); // Generate Huffman codes
+        for (Map.Entry<Character, String> entry : huffmanCode.entrySet()) {
+            if (entry.getKey() < 256) {
+                latin1Codes[entry.getKey()] = packCode(entry.getValue());
+            }
+        }
+
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.HUFFMAN_HEAP_OPS.add(frequencyMap.size() + 1L); // Initial inserts and final poll
+            SolverMetrics.HUFFMAN_BUILD_TIME.record(System.nanoTime() - startNanos);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "build";
+            event.symbols = text.length();
+            event.distinctSymbols = frequencyMap.size();
+            event.commit();
+        }
+    }
+    
+    // Recursive function to generate Huffman codes
+    private void buildHuffmanCode(HuffmanNode node, String code) {
+        if (node == null) return;
+        if (node.character != '\0') {
+            huffmanCode.put(node.character, code);
+        }
+        buildHuffmanCode(node.left, code + "0");
+        buildHuffmanCode(node.right, code + "1");
+    }
+    
+    // Function to encode input text using Huffman codes
+    public String encode(String text) {
+        SolverMetrics.HuffmanEvent event = new SolverMetrics.HuffmanEvent();
+        event.begin();
+        long startNanos = SolverMetrics.ENABLED ? System.nanoTime() : 0L;
+        StringBuilder encodedText = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            encodedText.append(huffmanCode.get(c)); // Replace each character with its Huffman code
+        }
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.HUFFMAN_SYMBOLS_ENCODED.add(text.length());
+            SolverMetrics.HUFFMAN_ENCODE_TIME.record(System.nanoTime() - startNanos);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "encode";
+            event.symbols = text.length();
+            event.distinctSymbols = huffmanCode.size();
+            event.commit();
+        }
+        return encodedText.toString();
+    }
+    
+    // Number of bits in the code of c, which must occur in the text the tree was built from
+    public int codeLength(char c) {
+        return c < 256 ? (int) latin1Codes[c] & 63 : huffmanCode.get(c).length();
+    }
+
+    // Code bits as a number with the length in the low 6 bits. A tree built from int
+    // frequencies is at most 46 levels deep, so every code fits
+    private static long packCode(String code) {
+        return code.isEmpty() ? 0 : Long.parseLong(code, 2) << 6 | code.length();
+    }
+
+    /**
+     * Encodes text as packed bits, most significant bit first, zero-padded to whole bytes.
+     * Codes go through a 64-bit buffer that is flushed 32 bits at a time.
+     */
+    public byte[] encodePacked(String text) {
+        long startNanos = SolverMetrics.ENABLED ? System.nanoTime() : 0L;
+        byte[] out = new byte[text.length() / 2 + 16];
+        int pos = 0;
+        long buffer = 0; // Pending bits are the low 'bits' bits
+        int bits = 0;
+        char[] chunk = new char[Math.min(ENCODE_CHUNK, text.length())];
+        for (int i = 0, chunkStart = 0, chunkEnd = 0; i < text.length(); i++) {
+            if (i == chunkEnd) { // Copying chars out in chunks is much cheaper than charAt per char
+                chunkStart = i;
+                chunkEnd = Math.min(i + ENCODE_CHUNK, text.length());
+                text.getChars(chunkStart, chunkEnd, chunk, 0);
+            }
+            char c = chunk[i - chunkStart];
+            long code = c < 256 ? latin1Codes[c] : packCode(huffmanCode.get(c));
+            int length = (int) code & 63;
+            long value = code >>> 6;
+            if (length > 32) { // Rare deep code: push its high part first so the buffer cannot overflow
+                buffer = (buffer << (length - 32)) | (value >>> 32);
+                bits += length - 32;
+                if (bits >= 32) {
+                    bits -= 32;
+                    out = ensureCapacity(out, pos + 4);
+                    pos = writeInt(out, pos, (int) (buffer >>> bits));
+                }
+                length = 32;
+                value &= 0xFFFFFFFFL;
+            }
+            buffer = (buffer << length) | value;
+            bits += length;
+            if (bits >= 32) { // At most 31 + 32 bits pending
+                bits -= 32;
+                out = ensureCapacity(out, pos + 4);
+                pos = writeInt(out, pos, (int) (buffer >>> bits));
+            }
+        }
+        out = ensureCapacity(out, pos + 4);
+        while (bits >= 8) {
+            bits -= 8;
+            out[pos++] = (byte) (buffer >>> bits);
+        }
+        if (bits > 0) {
+            out[pos++] = (byte) (buffer << (8 - bits)); // Zero padding
+        }
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.HUFFMAN_SYMBOLS_ENCODED.add(text.length());
+            SolverMetrics.HUFFMAN_ENCODE_TIME.record(System.nanoTime() - startNanos);
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    private static byte[] ensureCapacity(byte[] out, int size) {
+        return size <= out.length ? out : Arrays.copyOf(out, Math.max(size, out.length * 2));
+    }
+
+    private static int writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
+        return pos + 4;
+    }
+
+    // Decodes the first 'symbols' characters of bits written by encodePacked
+    public String decodePacked(byte[] packed, int symbols) {
+        if (symbols > 0 && root.left == null) {
+            return String.valueOf(root.character).repeat(symbols); // One distinct character: no bits at all
+        }
+        StringBuilder decodedText = new StringBuilder(symbols);
+        HuffmanNode current = root;
+        for (int bit = 0; decodedText.length() < symbols; bit++) {
+            if (bit >= packed.length * 8) {
+                throw new IllegalArgumentException("Packed data ends after " + decodedText.length() + " symbols");
+            }
+            current = (packed[bit >>> 3] << (bit & 7) & 0x80) == 0 ? current.left : current.right;
+            if (current.character != '\0') {
+                decodedText.append(current.character);
+                current = root;
+            }
+        }
+        return decodedText.toString();
+    }
+
+    // Function to decode encoded text using Huffman tree
+    public String decode(String encodedText) {
+        SolverMetrics.HuffmanEvent event = new SolverMetrics.HuffmanEvent();
+        event.begin();
+        long startNanos = SolverMetrics.ENABLED ? System.nanoTime() : 0L;
+        StringBuilder decodedText = new StringBuilder();
+        HuffmanNode current = root;
+        for (char bit : encodedText.toCharArray()) {
+            current = (bit == '0') ? current.left : current.right;
+            if (current.character != '\0') {
+                decodedText.append(current.character);
+                current = root;
+            }
+        }
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.HUFFMAN_SYMBOLS_DECODED.add(decodedText.length());
+            SolverMetrics.HUFFMAN_DECODE_TIME.record(System.nanoTime() - startNanos);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "decode";
+            event.symbols = decodedText.length();
+            event.distinctSymbols = huffmanCode.size();
+            event.commit();
+        }
+        return decodedText.toString();
+    }
+}
+
+/**
+ * HuffmanNode class represents a node in the Huffman tree.
+ */
+class HuffmanNode {
+    char character; // Character stored in node
+    int frequency; // Frequency of the character
+    HuffmanNode left, right; // Left and right children of the node
+    
+    public HuffmanNode(char character, int frequency) {
+        this.character = character;
+        this.frequency = frequency;
+    }
+    
+    public HuffmanNode(char character, int frequency, HuffmanNode left, HuffmanNode right) {
+        this.character = character;
+        this.frequency = frequency;
+        this.left = left;
+        this.right = right;
+    }
+}
+
+
+
+// Step 1: Select a File
+// Let's say we select a text file named example.txt, containing the following text:
+
+// hello huffman
+// Step 2: Compression using Huffman Encoding
+// The program reads the file content (hello huffman) and calculates the frequency of each character:
+
+// h -> 2
+// e -> 1
+// l -> 3
+// o -> 1
+// ' ' -> 1
+// u -> 1
+// f -> 2
+// m -> 1
+// a -> 1
+// n -> 1
+// Using this frequency, a Huffman Tree is built, assigning binary codes to each character:
+
+
+// h -> 10
+// e -> 011
+// l -> 00
+// o -> 110
+// ' ' -> 111
+// u -> 0100
+// f -> 0101
+// m -> 0010
+// a -> 0011
+// n -> 101
+
+
+// Step 3: Output (Compressed Binary Data)
+// The original text:
+
+// hello huffman
+// gets converted into the compressed binary:
+
+
+// 10 011 00 00 110 111 10 0100 0101 0101 0010 0011 101
+// (This is displayed in the GUI after clicking the "Compress" button.)
+
+// Step 4: Decompression using Huffman Decoding
+// The program uses the Huffman tree to decode the binary sequence back into:
+
+
+// hello huffman
+// (This is displayed in the GUI after clicking the "Decompress" button.)
+
+// Comparison of Compression Ratio
+// Original text size: 14 characters × 8 bits = 112 bits
+// Compressed text size: ~50-60 bits (depends on character frequencies)
+// Compression ratio: ~50% reduction in size
+
+
+
+
+//What is Huffman Encoding?
+// Huffman Encoding is a greedy algorithm used for lossless data compression. It assigns shorter binary codes to more frequent characters and longer codes to less frequent ones, reducing the total number of bits needed to store data.
+
+// How Huffman Encoding Works:
+// Calculate Character Frequency:
+
+// Count how many times each character appears in the text.
+// Build a Huffman Tree:
+
+// Create a min-heap (priority queue) based on character frequency.
+// Merge two lowest-frequency nodes iteratively until only one node remains (root of Huffman Tree).
+// Assign Binary Codes:
+
+// Traverse the Huffman Tree to generate binary codes for each character.
+// Encode the Text:
+
+// Replace characters in the original text with their corresponding Huffman codes.
+// Decode the Text:
+
+// Use the Huffman Tree to convert binary data back to the original text.
+// Features of Huffman Encoding:
+// ✅ Lossless Compression: No data is lost during compression and decompression.
+// ✅ Efficient for Text Files: Works well for text-based data, like .txt files.
+// ✅ Variable-Length Encoding: Assigns shorter codes to frequent characters, reducing overall size.
+// ✅ Used in Real-World Applications: Found in ZIP compression, JPEG image formats, MP3 encoding, and more.
+// ✅ Based on a Greedy Algorithm: Ensures optimal compression by always merging the smallest nodes first.
+
+
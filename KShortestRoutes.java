@@ -0,0 +1,337 @@
+import java.util.ArrayList; // Found and candidate routes
+import java.util.Arrays; // Comparing route prefixes
+import java.util.Comparator; // Ranking candidates
+import java.util.HashSet; // Routes and roads already seen
+import java.util.List; // Found and candidate routes
+import java.util.Objects; // Dropping spur searches that found nothing
+import java.util.Random; // Seeded benchmark queries
+import java.util.Set; // Routes and roads already seen
+import java.util.concurrent.ForkJoinPool; // Sizing spur batches to the parallel streams' pool
+import java.util.stream.Collectors; // Gathering parallel spur results
+import java.util.stream.IntStream; // Parallel spur searches
+
+/**
+ * K Shortest Routes - several route options between two locations on a RoadGraph.
+ *
+ * fastest() is Yen's algorithm for the k fastest routes without repeated locations:
+ * 1. The fastest route is the first option. Turn rules can make it pass a location twice
+ *    (round the block instead of a banned left turn); every later option never does.
+ * 2. Every later option leaves an earlier one at some spur location. It follows the earlier
+ *    route up to there (the root) and then takes the fastest way on that avoids the root's
+ *    locations, the spur location itself, and the roads that earlier options with the same
+ *    root took next. With turn rules that way can still enter a location twice over different
+ *    roads; the spur then searches again without the road of either visit, up to SPUR_RETRIES
+ *    levels deep, so in rare cases a loop-free option is still missed.
+ * 3. The spur searches of one round are independent and run in parallel. Each worker thread
+ *    keeps its own RoadGraph.Search, so its arrays are reused across spurs and queries.
+ * 4. Spur searches use A* with lower bounds from one backward search per query, and once
+ *    enough candidates are known they stop at routes that could not make the top k.
+ *
+ * The k fastest routes often differ by a single block. alternatives() uses the penalty
+ * method instead: it slows down the roads of each route found and searches again. It keeps
+ * routes that are at most MAX_STRETCH times slower than the best, share at most
+ * MAX_SHARED of their time with any route already kept, and pass each location once.
+ *
+ * Benchmark: java KShortestRoutes --bench [grid side] [queries] [k]
+ */
+final class KShortestRoutes {
+    static final int PENALTY_PERMILLE = 400; // A road gets 40% slower each time a found route uses it
+    static final double MAX_STRETCH = 1.5;
+    static final double MAX_SHARED = 0.7;
+    // Spur searches started together; enough to keep every core busy
+    private static final int SPUR_BATCH = Math.max(8, 4 * ForkJoinPool.getCommonPoolParallelism());
+    // Levels of searching again when a spur passes a location twice (at most 2^(n+1) - 1 searches)
+    private static final int SPUR_RETRIES = 2;
+
+    // Earliest arrival first, then fewer locations
+    private static final Comparator<RoadGraph.Route> FASTEST_FIRST =
+            Comparator.<RoadGraph.Route>comparingInt(route -> route.arrival).thenComparingInt(route -> route.nodes.length);
+
+    private final RoadGraph graph;
+    private final ThreadLocal<RoadGraph.Search> searches;
+
+    KShortestRoutes(RoadGraph graph) {
+        this.graph = graph;
+        this.searches = ThreadLocal.withInitial(() -> new RoadGraph.Search(graph));
+    }
+
+    /**
+     * Yen's k fastest routes, fastest first. Fewer when there are not k routes.
+     */
+    List<RoadGraph.Route> fastest(int from, int to, int departure, int k) {
+        List<RoadGraph.Route> found = new ArrayList<>();
+        int[] potential = graph.lowerBoundsTo(to);
+        if (k <= 0 || potential[from] == Integer.MAX_VALUE) {
+            return found;
+        }
+        RoadGraph.Route best = searches.get().search(from, to, departure, potential, null, Integer.MAX_VALUE, false);
+        if (best == null) {
+            return found;
+        }
+        found.add(best);
+        List<RoadGraph.Route> candidates = new ArrayList<>(); // Sorted FASTEST_FIRST, at most k
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(key(best));
+        while (found.size() < k) {
+            RoadGraph.Route last = found.get(found.size() - 1);
+            int needed = k - found.size();
+            // Spurs near the end are cheap and quickly give candidates, so run them first
+            // and let the bound they set cut short the long searches from near the start
+            for (int high = last.nodes.length - 1; high > 0; high -= SPUR_BATCH) {
+                // Routes arriving after the needed-th candidate can never be picked
+                int bound = candidates.size() >= needed ? candidates.get(needed - 1).arrival : Integer.MAX_VALUE;
+                List<RoadGraph.Route> spurs = IntStream.range(Math.max(0, high - SPUR_BATCH), high).parallel()
+                        .mapToObj(i -> spur(found, last, i, to, potential, bound))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                for (RoadGraph.Route route : spurs) {
+                    if (seen.add(key(route))) {
+                        candidates.add(route);
+                    }
+                }
+                candidates.sort(FASTEST_FIRST);
+                if (candidates.size() > needed) {
+                    candidates.subList(needed, candidates.size()).clear(); // Later rounds need even fewer
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.remove(0));
+        }
+        // Dropped spurs can let a later option beat an earlier one, so keep the fastest first promise
+        found.sort(FASTEST_FIRST);
+        return found;
+    }
+
+    // Fastest way to the end that leaves 'last' at its i-th location, or null
+    private RoadGraph.Route spur(List<RoadGraph.Route> found, RoadGraph.Route last, int i, int to,
+                                 int[] potential, int bound) {
+        if (repeatsLocation(Arrays.copyOf(last.nodes, i + 1))) {
+            return null; // The root passes a location twice (only possible on the first route)
+        }
+        // Continue from the spur location as reached over the root, so its turn rules apply
+        int spurNode = last.nodes[i];
+        int start = i == 0 ? spurNode : graph.arrivalState(graph.edgeBetween(last.nodes[i - 1], spurNode));
+        RoadGraph.Route rest = spurRest(found, last, i, start, to, potential, bound, new int[0]);
+        if (rest == null) {
+            return null;
+        }
+        int[] nodes = new int[i + rest.nodes.length];
+        int[] times = new int[nodes.length];
+        System.arraycopy(last.nodes, 0, nodes, 0, i);
+        System.arraycopy(last.times, 0, times, 0, i);
+        System.arraycopy(rest.nodes, 0, nodes, i, rest.nodes.length);
+        System.arraycopy(rest.times, 0, times, i, rest.times.length);
+        return new RoadGraph.Route(nodes, times);
+    }
+
+    // Fastest loop-free way from the spur state to the end, avoiding the root and the extra
+    // banned roads. If the search passes a location twice, try again without the road of its
+    // first visit and without the road of its second visit, up to SPUR_RETRIES levels deep.
+    private RoadGraph.Route spurRest(List<RoadGraph.Route> found, RoadGraph.Route last, int i, int start, int to,
+                                     int[] potential, int bound, int[] extraBans) {
+        RoadGraph.Search search = searches.get();
+        search.clearBans();
+        for (RoadGraph.Route route : found) {
+            if (route.nodes.length > i + 1 && Arrays.equals(route.nodes, 0, i + 1, last.nodes, 0, i + 1)) {
+                search.banEdge(graph.edgeBetween(route.nodes[i], route.nodes[i + 1]));
+            }
+        }
+        // Banning a location bans every state of it, so the spur cannot come back over another road
+        for (int j = 0; j <= i; j++) {
+            search.banNode(last.nodes[j]);
+        }
+        for (int e : extraBans) {
+            search.banEdge(e);
+        }
+        RoadGraph.Route rest = search.search(start, to, last.times[i], potential, null, bound, true);
+        if (rest == null || !repeatsLocation(rest.nodes)) {
+            return rest;
+        }
+        if (extraBans.length == SPUR_RETRIES) {
+            return null;
+        }
+        // Both visits come after the spur location, which is banned, so neither is at index 0
+        int first = -1;
+        int second = 1;
+        while (first < 0) {
+            second++;
+            for (int j = 1; j < second && first < 0; j++) {
+                if (rest.nodes[j] == rest.nodes[second]) {
+                    first = j;
+                }
+            }
+        }
+        RoadGraph.Route best = null;
+        for (int visit : new int[] {first, second}) {
+            int[] bans = Arrays.copyOf(extraBans, extraBans.length + 1);
+            bans[extraBans.length] = graph.edgeBetween(rest.nodes[visit - 1], rest.nodes[visit]);
+            RoadGraph.Route option = spurRest(found, last, i, start, to, potential,
+                    best == null ? bound : Math.min(bound, best.arrival), bans);
+            if (option != null && (best == null || FASTEST_FIRST.compare(option, best) < 0)) {
+                best = option;
+            }
+        }
+        return best;
+    }
+
+    private static boolean repeatsLocation(int[] nodes) {
+        int[] sorted = nodes.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Up to k clearly different routes by the penalty method, the fastest first.
+     */
+    List<RoadGraph.Route> alternatives(int from, int to, int departure, int k) {
+        List<RoadGraph.Route> found = new ArrayList<>();
+        int[] potential = graph.lowerBoundsTo(to); // Still a lower bound once roads get slower
+        if (k <= 0 || potential[from] == Integer.MAX_VALUE) {
+            return found;
+        }
+        RoadGraph.Search search = searches.get();
+        RoadGraph.Route best = search.search(from, to, departure, potential, null, Integer.MAX_VALUE, false);
+        if (best == null) {
+            return found;
+        }
+        found.add(best);
+        List<Set<Long>> foundRoads = new ArrayList<>();
+        foundRoads.add(roads(best));
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(key(best));
+        int[] penalty = new int[graph.edgeCount()];
+        RoadGraph.Route latest = best;
+        for (int attempt = 0; attempt < 4 * k && found.size() < k; attempt++) {
+            for (int i = 0; i + 1 < latest.nodes.length; i++) {
+                penalty[graph.edgeBetween(latest.nodes[i], latest.nodes[i + 1])] += PENALTY_PERMILLE;
+            }
+            latest = search.search(from, to, departure, potential, penalty, Integer.MAX_VALUE, false);
+            if (latest == null) {
+                break;
+            }
+            if (!seen.add(key(latest)) || repeatsLocation(latest.nodes)) {
+                continue;
+            }
+            // Times along the route without the penalties
+            RoadGraph.Route route = new RoadGraph.Route(latest.nodes, graph.timesAlong(latest.nodes, departure));
+            if (route.seconds() > best.seconds() * MAX_STRETCH || sharesTooMuch(route, foundRoads)) {
+                continue;
+            }
+            found.add(route);
+            foundRoads.add(roads(route));
+        }
+        found.sort(FASTEST_FIRST);
+        return found;
+    }
+
+    // Whether the route spends more than MAX_SHARED of its time on the roads of one kept route
+    private static boolean sharesTooMuch(RoadGraph.Route route, List<Set<Long>> foundRoads) {
+        for (Set<Long> roads : foundRoads) {
+            long shared = 0;
+            for (int i = 0; i + 1 < route.nodes.length; i++) {
+                if (roads.contains(road(route.nodes[i], route.nodes[i + 1]))) {
+                    shared += route.times[i + 1] - route.times[i];
+                }
+            }
+            if (shared > MAX_SHARED * route.seconds()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<Long> roads(RoadGraph.Route route) {
+        Set<Long> roads = new HashSet<>();
+        for (int i = 0; i + 1 < route.nodes.length; i++) {
+            roads.add(road(route.nodes[i], route.nodes[i + 1]));
+        }
+        return roads;
+    }
+
+    private static long road(int from, int to) {
+        return (long) from << 32 | to;
+    }
+
+    private static List<Integer> key(RoadGraph.Route route) {
+        List<Integer> key = new ArrayList<>(route.nodes.length);
+        for (int node : route.nodes) {
+            key.add(node);
+        }
+        return key;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].equals("--bench")) {
+            System.err.println("Usage: java KShortestRoutes --bench [grid side] [queries] [k]");
+            return;
+        }
+        int side = args.length >= 2 ? Integer.parseInt(args[1]) : 300;
+        int queries = args.length >= 3 ? Integer.parseInt(args[2]) : 20;
+        int k = args.length >= 4 ? Integer.parseInt(args[3]) : 5;
+
+        RoadGraph[] graphs = {RoadGraph.grid(side, false, false), RoadGraph.grid(side, true, true)};
+        String[] labels = {"static", "turns + time-dependent"};
+        Random random = new Random(3);
+        int[] from = new int[queries];
+        int[] to = new int[queries];
+        int[] departure = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            from[q] = random.nextInt(graphs[0].size());
+            to[q] = random.nextInt(graphs[0].size());
+            departure[q] = random.nextInt(RoadGraph.PERIOD);
+        }
+        System.out.printf("%d x %d grid, %d queries, k = %d, %d cores%n",
+                side, side, queries, k, Runtime.getRuntime().availableProcessors());
+        for (int round = 1; round <= 3; round++) {
+            System.out.printf("Round %d%n", round);
+            for (int g = 0; g < graphs.length; g++) {
+                KShortestRoutes routes = new KShortestRoutes(graphs[g]);
+                RoadGraph.Search plain = new RoadGraph.Search(graphs[g]);
+                long single = 0;
+                long yen = 0;
+                long penalty = 0;
+                long yenRoutes = 0;
+                long penaltyRoutes = 0;
+                double yenStretch = 0;
+                double penaltyStretch = 0;
+                for (int q = 0; q < queries; q++) {
+                    long start = System.nanoTime();
+                    RoadGraph.Route best = plain.route(from[q], to[q], departure[q]);
+                    single += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    List<RoadGraph.Route> options = routes.fastest(from[q], to[q], departure[q], k);
+                    yen += System.nanoTime() - start;
+                    if (best == null ? !options.isEmpty() : options.get(0).arrival != best.arrival) {
+                        throw new AssertionError("Yen's first route is not the fastest");
+                    }
+                    for (int i = 1; i < options.size(); i++) {
+                        if (options.get(i).arrival < options.get(i - 1).arrival) {
+                            throw new AssertionError("Yen's routes are out of order");
+                        }
+                    }
+                    yenRoutes += options.size();
+                    yenStretch += best == null ? 0 : (double) options.get(options.size() - 1).seconds() / Math.max(1, best.seconds());
+
+                    start = System.nanoTime();
+                    List<RoadGraph.Route> alternatives = routes.alternatives(from[q], to[q], departure[q], k);
+                    penalty += System.nanoTime() - start;
+                    penaltyRoutes += alternatives.size();
+                    penaltyStretch += best == null ? 0 : (double) alternatives.get(alternatives.size() - 1).seconds() / Math.max(1, best.seconds());
+                }
+                System.out.printf("  %-23s fastest route %6.2f ms | Yen k=%d %7.2f ms, %.1f routes, slowest %.3fx"
+                                + " | penalty %7.2f ms, %.1f routes, slowest %.3fx%n",
+                        labels[g], single / 1e6 / queries, k, yen / 1e6 / queries, (double) yenRoutes / queries,
+                        yenStretch / queries, penalty / 1e6 / queries, (double) penaltyRoutes / queries,
+                        penaltyStretch / queries);
+            }
+        }
+    }
+}
@@ -0,0 +1,545 @@
+import java.io.ByteArrayInputStream; // In-memory input for the benchmark
+import java.io.FileInputStream; // Reading CSV files from disk
+import java.io.IOException; // Errors raised while streaming input
+import java.io.InputStream; // Generic byte source for ingest
+import java.nio.charset.StandardCharsets; // Names are stored as UTF-8 bytes
+import java.util.Arrays; // Growing primitive arrays
+import java.util.Random; // Synthetic data for the benchmark
+
+/**
+ * Ledger - scalable balance store for the Cash Flow Minimizer.
+ * Streams (payer, receiver, amount) records and keeps one net balance per person.
+ *
+ * Steps:
+ * 1. Intern every name to a dense int id (0, 1, 2, ...) without allocating per record.
+ * 2. Accumulate long balances in a primitive array indexed by id.
+ * 3. Track which people are connected by transactions (union-find), so independent
+ *    groups can be settled separately (see GroupSettlement).
+ * 4. Hand the balances to a settlement algorithm (see CashFlowMinimizer).
+ *
+ * CSV format: one "payer,receiver,amount" record per line. Amounts are whole
+ * numbers in the smallest currency unit (e.g. cents). Fields are not quoted;
+ * surrounding spaces are ignored, and a header line whose amount is not numeric is skipped.
+ *
+ * Benchmark: java Ledger --bench [records] [people] [group size]
+ */
+final class Ledger {
+    private static final int BUFFER_SIZE = 1 << 20; // 1 MiB read buffer
+
+    private final NameTable names = new NameTable(); // Name <-> id mapping
+    private long[] balances = new long[1024]; // Net balance per id; positive means owed money
+    private int[] parent = new int[1024]; // Union-find over ids: 0 = root, otherwise parent id + 1
+    private long transactionCount; // Number of records applied so far
+
+    /**
+     * Returns the id for a name, assigning the next free id if it is new.
+     */
+    int idOf(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return intern(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Returns the name that was interned under the given id.
+     */
+    String nameOf(int id) {
+        return names.nameOf(id);
+    }
+
+    /**
+     * Number of distinct people seen so far; valid ids are 0 .. size() - 1.
+     */
+    int size() {
+        return names.size();
+    }
+
+    long balanceOf(int id) {
+        return balances[id];
+    }
+
+    /**
+     * Overwrites the balance of an existing id (used to mirror another balance store).
+     */
+    void setBalance(int id, long balance) {
+        balances[id] = balance;
+    }
+
+    long transactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Records that payer paid amount to receiver.
+     * @throws ArithmeticException If either balance would overflow; the ledger is left unchanged.
+     */
+    void addTransaction(String payer, String receiver, long amount) {
+        addTransaction(idOf(payer), idOf(receiver), amount);
+    }
+
+    void addTransaction(int payerId, int receiverId, long amount) {
+        long payerBalance = Math.subtractExact(balances[payerId], amount);
+        long receiverBalance = Math.addExact(balances[receiverId], amount);
+        balances[payerId] = payerBalance;
+        balances[receiverId] = receiverBalance;
+        transactionCount++;
+        union(payerId, receiverId);
+    }
+
+    /**
+     * Returns a representative id for the group of people connected to id by
+     * transactions; two people are in the same group exactly when this matches.
+     */
+    int groupOf(int id) {
+        int up;
+        while ((up = parent[id]) != 0) {
+            int grandparent = parent[up - 1];
+            if (grandparent == 0) {
+                return up - 1;
+            }
+            parent[id] = grandparent; // Path halving: skip a level on the way up
+            id = grandparent - 1;
+        }
+        return id;
+    }
+
+    private void union(int a, int b) {
+        int rootA = groupOf(a);
+        int rootB = groupOf(b);
+        if (rootA != rootB) {
+            // The smaller id becomes the root, so a group is named by its first member
+            if (rootA < rootB) {
+                parent[rootB] = rootA + 1;
+            } else {
+                parent[rootA] = rootB + 1;
+            }
+        }
+    }
+
+    /**
+     * Removes every balance and name.
+     */
+    void clear() {
+        names.clear();
+        Arrays.fill(balances, 0L);
+        Arrays.fill(parent, 0);
+        transactionCount = 0;
+    }
+
+    /**
+     * Streams CSV records from the given input and applies them to the ledger.
+     * @param in Byte stream of "payer,receiver,amount" lines.
+     * @return Number of records applied.
+     * @throws IOException If reading fails, a line is malformed, or a balance would overflow.
+     */
+    long ingestCsv(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int filled = 0; // Bytes currently held in the buffer
+        long lineNumber = 0;
+        long applied = 0;
+        while (true) {
+            if (filled == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2); // A single line larger than the buffer
+            }
+            int read = in.read(buffer, filled, buffer.length - filled);
+            boolean eof = read < 0;
+            if (!eof) {
+                filled += read;
+            }
+
+            // Parse every complete line in the buffer
+            int lineStart = 0;
+            while (lineStart < filled) {
+                int next;
+                try {
+                    next = parseSimpleRecord(buffer, lineStart, filled);
+                } catch (ArithmeticException e) {
+                    throw new IOException("Line " + (lineNumber + 1) + ": amount overflows a balance");
+                }
+                if (next >= 0) {
+                    lineNumber++;
+                    applied++;
+                    lineStart = next;
+                    continue;
+                }
+                // Anything unusual (header, spaces, incomplete line) takes the general path
+                int newline = indexOf(buffer, (byte) '\n', lineStart, filled);
+                if (newline < 0) {
+                    break;
+                }
+                lineNumber++;
+                applied += parseLine(buffer, lineStart, newline, lineNumber);
+                lineStart = newline + 1;
+            }
+            if (eof) {
+                if (lineStart < filled) { // Last line without a trailing newline
+                    lineNumber++;
+                    applied += parseLine(buffer, lineStart, filled, lineNumber);
+                }
+                return applied;
+            }
+
+            // Move the partial last line to the front of the buffer
+            System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+            filled -= lineStart;
+        }
+    }
+
+    /**
+     * Fast path for the common "name,name,digits" record without spaces.
+     * Scans the line once, hashing names and parsing the amount as it goes.
+     * @return Position after the record's newline, or -1 to fall back to parseLine.
+     */
+    private int parseSimpleRecord(byte[] buf, int start, int limit) {
+        int i = start;
+        byte b = 0;
+        int payerHash = 0;
+        while (i < limit && (b = buf[i]) != ',') {
+            if (b <= ' ') {
+                return -1; // Whitespace or end of line inside the payer field
+            }
+            payerHash = 31 * payerHash + b;
+            i++;
+        }
+        int payerEnd = i;
+        if (i >= limit || payerEnd == start) {
+            return -1;
+        }
+
+        int receiverStart = ++i;
+        int receiverHash = 0;
+        while (i < limit && (b = buf[i]) != ',') {
+            if (b <= ' ') {
+                return -1;
+            }
+            receiverHash = 31 * receiverHash + b;
+            i++;
+        }
+        int receiverEnd = i;
+        if (i >= limit || receiverEnd == receiverStart) {
+            return -1;
+        }
+
+        int amountStart = ++i;
+        long amount = 0;
+        while (i < limit && (b = buf[i]) >= '0' && b <= '9') {
+            amount = amount * 10 + (b - '0');
+            i++;
+        }
+        int digits = i - amountStart;
+        if (digits == 0 || digits > 18 || i >= limit) {
+            return -1; // Not a plain amount, or possibly too large for a long
+        }
+        if (b == '\r') {
+            if (++i >= limit) {
+                return -1;
+            }
+            b = buf[i];
+        }
+        if (b != '\n') {
+            return -1;
+        }
+
+        int payer = intern(buf, start, payerEnd - start, payerHash);
+        int receiver = intern(buf, receiverStart, receiverEnd - receiverStart, receiverHash);
+        addTransaction(payer, receiver, amount);
+        return i + 1;
+    }
+
+    /**
+     * Parses one line and applies it.
+     * @return 1 if a record was applied, 0 for blank or header lines.
+     */
+    private int parseLine(byte[] buf, int start, int end, long lineNumber) throws IOException {
+        if (end > start && buf[end - 1] == '\r') {
+            end--; // Windows line ending
+        }
+        int firstComma = indexOf(buf, (byte) ',', start, end);
+        int secondComma = firstComma < 0 ? -1 : indexOf(buf, (byte) ',', firstComma + 1, end);
+        if (secondComma < 0) {
+            if (isBlank(buf, start, end)) {
+                return 0;
+            }
+            throw new IOException("Line " + lineNumber + ": expected payer,receiver,amount");
+        }
+
+        // Parse the amount first so a header line can be skipped before interning its names
+        int amountStart = skipSpaces(buf, secondComma + 1, end);
+        int amountEnd = trimSpaces(buf, amountStart, end);
+        if (amountStart == amountEnd || !isDigit(buf[amountStart])) {
+            if (lineNumber == 1) {
+                return 0; // Header line
+            }
+            throw new IOException("Line " + lineNumber + ": invalid amount");
+        }
+        long amount = 0;
+        for (int i = amountStart; i < amountEnd; i++) {
+            byte b = buf[i];
+            if (!isDigit(b)) {
+                throw new IOException("Line " + lineNumber + ": invalid amount");
+            }
+            if (amount > (Long.MAX_VALUE - 9) / 10) {
+                throw new IOException("Line " + lineNumber + ": amount too large");
+            }
+            amount = amount * 10 + (b - '0');
+        }
+
+        int payerStart = skipSpaces(buf, start, firstComma);
+        int payerEnd = trimSpaces(buf, payerStart, firstComma);
+        int receiverStart = skipSpaces(buf, firstComma + 1, secondComma);
+        int receiverEnd = trimSpaces(buf, receiverStart, secondComma);
+        if (payerStart == payerEnd || receiverStart == receiverEnd) {
+            throw new IOException("Line " + lineNumber + ": missing name");
+        }
+        int payer = intern(buf, payerStart, payerEnd - payerStart);
+        int receiver = intern(buf, receiverStart, receiverEnd - receiverStart);
+        try {
+            addTransaction(payer, receiver, amount);
+        } catch (ArithmeticException e) {
+            throw new IOException("Line " + lineNumber + ": amount overflows a balance");
+        }
+        return 1;
+    }
+
+    private int intern(byte[] bytes, int offset, int length) {
+        return intern(bytes, offset, length, NameTable.rawHash(bytes, offset, length));
+    }
+
+    private int intern(byte[] bytes, int offset, int length, int rawHash) {
+        int id = names.intern(bytes, offset, length, rawHash);
+        if (id == balances.length) {
+            balances = Arrays.copyOf(balances, balances.length * 2);
+            parent = Arrays.copyOf(parent, parent.length * 2);
+        }
+        return id;
+    }
+
+    private static int indexOf(byte[] buf, byte target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isBlank(byte[] buf, int start, int end) {
+        return skipSpaces(buf, start, end) == end;
+    }
+
+    private static int skipSpaces(byte[] buf, int start, int end) {
+        while (start < end && (buf[start] == ' ' || buf[start] == '\t')) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(byte[] buf, int start, int end) {
+        while (end > start && (buf[end - 1] == ' ' || buf[end - 1] == '\t')) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Open-addressing hash table from UTF-8 name bytes to dense int ids.
+     * Name bytes live in one shared byte pool, so interning a name that was
+     * already seen compares bytes in place and allocates nothing.
+     */
+    static final class NameTable {
+        private int[] slots = new int[2048]; // id + 1 per slot, 0 = empty
+        private int[] hashes = new int[1024]; // Hash of each id's name
+        private int[] offsets = new int[1024]; // Start of each id's name in the pool
+        private int[] lengths = new int[1024]; // Length of each id's name
+        private byte[] pool = new byte[16 * 1024]; // Concatenated name bytes
+        private int poolSize;
+        private String[] decoded = new String[1024]; // Lazily decoded names
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the id of the given name bytes, inserting them if new.
+         * @param rawHash rawHash(bytes, offset, length), which callers may compute while scanning.
+         */
+        int intern(byte[] bytes, int offset, int length, int rawHash) {
+            int hash = rawHash ^ (rawHash >>> 16); // Spread high bits into the masked low bits
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (true) {
+                int entry = slots[slot];
+                if (entry == 0) {
+                    return insert(slot, hash, bytes, offset, length);
+                }
+                int id = entry - 1;
+                if (hashes[id] == hash && lengths[id] == length
+                        && Arrays.equals(pool, offsets[id], offsets[id] + length, bytes, offset, offset + length)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask; // Linear probing
+            }
+        }
+
+        String nameOf(int id) {
+            if (id < 0 || id >= size) {
+                throw new IndexOutOfBoundsException("Unknown id " + id);
+            }
+            String name = decoded[id];
+            if (name == null) {
+                name = new String(pool, offsets[id], lengths[id], StandardCharsets.UTF_8);
+                decoded[id] = name;
+            }
+            return name;
+        }
+
+        void clear() {
+            Arrays.fill(slots, 0);
+            Arrays.fill(decoded, 0, size, null);
+            size = 0;
+            poolSize = 0;
+        }
+
+        private int insert(int slot, int hash, byte[] bytes, int offset, int length) {
+            int id = size;
+            if (id == hashes.length) {
+                int capacity = id * 2;
+                hashes = Arrays.copyOf(hashes, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                decoded = Arrays.copyOf(decoded, capacity);
+            }
+            if (poolSize + length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+            }
+            System.arraycopy(bytes, offset, pool, poolSize, length);
+            hashes[id] = hash;
+            offsets[id] = poolSize;
+            lengths[id] = length;
+            poolSize += length;
+            slots[slot] = id + 1;
+            size++;
+            if (size * 2 > slots.length) {
+                rehash(); // Keep the load factor at or below 0.5
+            }
+            return id;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        static int rawHash(byte[] bytes, int offset, int length) {
+            int h = 0;
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h;
+        }
+    }
+
+    /**
+     * Entry point: ingests a CSV file and prints each group's settlement as it
+     * finishes, or runs the ingest and settlement benchmark with
+     * "--bench [records] [people] [group size]".
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 1 && args[0].equals("--bench")) {
+            int records = args.length >= 2 ? Integer.parseInt(args[1]) : 10_000_000;
+            int people = args.length >= 3 ? Integer.parseInt(args[2]) : 10_000;
+            int groupSize = args.length >= 4 ? Integer.parseInt(args[3]) : people;
+            benchmark(records, people, groupSize);
+            return;
+        }
+        if (args.length != 1) {
+            System.err.println("Usage: java Ledger <transactions.csv> | --bench [records] [people] [group size]");
+            return;
+        }
+        Ledger ledger = new Ledger();
+        try (InputStream in = new FileInputStream(args[0])) {
+            ledger.ingestCsv(in);
+        }
+        GroupSettlement.settle(ledger, group -> {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < group.settlements.size(); i++) {
+                lines.append(group.settlements.describe(i, ledger)).append('\n');
+            }
+            System.out.print(lines); // One print per group keeps groups from interleaving
+        });
+    }
+
+    /**
+     * Measures ingest throughput on synthetic CSV held in memory, so the
+     * number reflects parsing and accumulation rather than disk speed,
+     * then compares the heap and two-pointer settlement paths on the result.
+     */
+    private static void benchmark(int records, int people, int groupSize) throws IOException {
+        byte[] csv = syntheticCsv(records, people, groupSize, 42L);
+        System.out.printf("Synthetic CSV: %,d records, %,d people in groups of %,d, %,d bytes%n",
+                records, people, groupSize, csv.length);
+        Ledger ledger = null;
+        for (int round = 1; round <= 5; round++) { // Early rounds warm up the JIT
+            ledger = new Ledger();
+            long start = System.nanoTime();
+            long applied = ledger.ingestCsv(new ByteArrayInputStream(csv));
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Round %d: %,d records in %.1f ms = %,.0f records/s (%.0f MB/s)%n",
+                    round, applied, elapsed / 1e6, applied * 1e9 / elapsed, csv.length * 1e3 / elapsed);
+        }
+
+        for (int round = 1; round <= 5; round++) {
+            long start = System.nanoTime();
+            int heapPayments = CashFlowMinimizer.minimizeTransactions(ledger).size();
+            long heapNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int sortedPayments = CashFlowMinimizer.settleSorted(ledger).size();
+            long sortedNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int zeroSumPayments = ZeroSumSettlement.settle(ledger).size();
+            long zeroSumNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int groupedPayments = GroupSettlement.settleAll(ledger).size();
+            long groupedNanos = System.nanoTime() - start;
+            System.out.printf("Settle %d: heap %,d payments in %.1f ms, two-pointer %,d payments in %.1f ms,"
+                            + " zero-sum %,d payments in %.1f ms, grouped %,d payments in %.1f ms%n",
+                    round, heapPayments, heapNanos / 1e6, sortedPayments, sortedNanos / 1e6,
+                    zeroSumPayments, zeroSumNanos / 1e6, groupedPayments, groupedNanos / 1e6);
+        }
+    }
+
+    /**
+     * Generates random transactions among people split into consecutive groups of
+     * groupSize; nobody ever pays someone outside their own group.
+     */
+    static byte[] syntheticCsv(int records, int people, int groupSize, long seed) {
+        Random random = new Random(seed);
+        StringBuilder csv = new StringBuilder(records * 24);
+        csv.append("payer,receiver,amount\n");
+        groupSize = Math.max(2, Math.min(groupSize, people));
+        int groups = people / groupSize;
+        for (int i = 0; i < records; i++) {
+            int group = random.nextInt(groups) * groupSize;
+            int payer = group + random.nextInt(groupSize);
+            int receiver = group + random.nextInt(groupSize - 1);
+            if (receiver >= payer) {
+                receiver++; // Never pay yourself
+            }
+            csv.append('p').append(payer).append(',')
+                    .append('p').append(receiver).append(',')
+                    .append(1 + random.nextInt(100_000)).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
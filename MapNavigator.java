@@ -12,6 +12,10 @@ public class MapNavigator {
     
     // Graph representation as an adjacency list
     private static final Map<String, Map<String, Integer>> graph = new HashMap<>();
+
+    // Same map as a RoadGraph with rush hour and turns, for departure-time queries
+    private static RoadGraph roads;
+    private static KShortestRoutes roadOptions;
     
     public static void main(String[] args) {
         // Launch GUI in event dispatch thread
@@ -22,17 +26,22 @@ public class MapNavigator {
         // Create main application window
         JFrame frame = new JFrame("Map Navigator - Dijkstra's Algorithm");
         frame.setSize(500, 400);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // See ProjectLauncher
         frame.setLayout(new BorderLayout());
 
         // Create UI components
         JPanel panel = new JPanel();
-        panel.setLayout(new GridLayout(3, 2)); // Grid layout for input fields and button
+        panel.setLayout(new GridLayout(5, 2)); // Grid layout for input fields and button
 
         JLabel startLabel = new JLabel("Start Location:"); // Label for start location
         JTextField startField = new JTextField(); // Input field for start location
         JLabel endLabel = new JLabel("End Location:"); // Label for end location
         JTextField endField = new JTextField(); // Input field for end location
+        JLabel departureLabel = new JLabel("Departure (HH:MM):"); // Label for departure time
+        JTextField departureField = new JTextField("08:00"); // Input field for departure time
+        JLabel optionsLabel = new JLabel("Route options:"); // Label for the number of routes to list
+        JSpinner optionsSpinner = new JSpinner(new SpinnerNumberModel(3, 1, 10, 1)); // How many routes to list
+        JCheckBox alternativesBox = new JCheckBox("Distinct alternatives"); // Penalty method instead of k fastest
         JButton findPathButton = new JButton("Find Shortest Path"); // Button to trigger path finding
         JTextArea resultArea = new JTextArea(); // Area to display results
         resultArea.setEditable(false);
@@ -42,6 +51,11 @@ public class MapNavigator {
         panel.add(startField);
         panel.add(endLabel);
         panel.add(endField);
+        panel.add(departureLabel);
+        panel.add(departureField);
+        panel.add(optionsLabel);
+        panel.add(optionsSpinner);
+        panel.add(alternativesBox);
         panel.add(findPathButton);
 
         // Add panel and result area to frame
@@ -61,6 +75,22 @@ public class MapNavigator {
             }
             List<String> shortestPath = dijkstra(start, end); // Find shortest path using Dijkstra's algorithm
             resultArea.setText("Shortest Path: " + String.join(" -> ", shortestPath)); // Display result
+            int departure = parseTime(departureField.getText().trim());
+            if (departure < 0) {
+                resultArea.append("\nDeparture must be a time such as 08:00.");
+                return;
+            }
+            // Route options at that time of day, with rush hour and turn rules
+            int k = (Integer) optionsSpinner.getValue();
+            List<RoadGraph.Route> routes = alternativesBox.isSelected()
+                    ? roadOptions.alternatives(roads.idOf(start), roads.idOf(end), departure, k)
+                    : roadOptions.fastest(roads.idOf(start), roads.idOf(end), departure, k);
+            resultArea.append("\nRoutes departing " + formatTime(departure) + ":" + (routes.isEmpty() ? " none" : ""));
+            for (int i = 0; i < routes.size(); i++) {
+                RoadGraph.Route route = routes.get(i);
+                resultArea.append("\n  " + (i + 1) + ". " + route.describe(roads) + ", arriving "
+                        + formatTime(route.arrival) + " (" + route.seconds() / 60 + " min)");
+            }
         });
 
         frame.setVisible(true);
@@ -68,19 +98,76 @@ public class MapNavigator {
     
     private static void initializeGraph() {
         // Initialize a sample graph with locations and distances
-        graph.put("A", Map.of("B", 5, "C", 10));
-        graph.put("B", Map.of("A", 5, "D", 7));
-        graph.put("C", Map.of("A", 10, "D", 3));
-        graph.put("D", Map.of("B", 7, "C", 3, "E", 8));
-        graph.put("E", Map.of("D", 8));
+        graph.putAll(sampleGraph());
+        roads = sampleRoads();
+        roadOptions = new KShortestRoutes(roads);
     }
-    
+
+    // The sample map with distances as minutes of driving, a morning rush hour on B -> D,
+    // a slow left turn from C onto D -> E and no turning back from D towards B
+    static RoadGraph sampleRoads() {
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        for (Map.Entry<String, Map<String, Integer>> node : new TreeMap<>(sampleGraph()).entrySet()) {
+            for (Map.Entry<String, Integer> edge : new TreeMap<>(node.getValue()).entrySet()) {
+                builder.road(node.getKey(), edge.getKey(), edge.getValue() * 60);
+            }
+        }
+        int rushHour = builder.shape(new int[] {6 * 3600 + 1800, 8 * 3600, 9 * 3600 + 1800}, new int[] {1000, 2150, 1000});
+        builder.profile("B", "D", rushHour);
+        builder.turnCost("C", "D", "E", 60);
+        builder.restrictTurn("C", "D", "B");
+        return builder.build();
+    }
+
+    // "HH:MM" as seconds since midnight, or -1
+    private static int parseTime(String text) {
+        String[] parts = text.split(":");
+        try {
+            int hours = Integer.parseInt(parts[0]);
+            int minutes = parts.length == 2 ? Integer.parseInt(parts[1]) : -1;
+            if (parts.length != 2 || hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+                return -1;
+            }
+            return hours * 3600 + minutes * 60;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String formatTime(int seconds) {
+        int minutes = seconds / 60;
+        String time = String.format("%02d:%02d", minutes / 60 % 24, minutes % 60);
+        return minutes >= 24 * 60 ? time + " (+" + minutes / (24 * 60) + " day)" : time;
+    }
+
+    // Sample map shown in the GUI, also the default for the headless engine
+    static Map<String, Map<String, Integer>> sampleGraph() {
+        return Map.of(
+                "A", Map.of("B", 5, "C", 10),
+                "B", Map.of("A", 5, "D", 7),
+                "C", Map.of("A", 10, "D", 3),
+                "D", Map.of("B", 7, "C", 3, "E", 8),
+                "E", Map.of("D", 8));
+    }
+
     private static List<String> dijkstra(String start, String end) {
+        return dijkstra(graph, start, end);
+    }
+
+    // Shortest path from start to end over any graph; both must be keys of the graph.
+    // When end cannot be reached the path holds only end.
+    static List<String> dijkstra(Map<String, Map<String, Integer>> graph, String start, String end) {
+        SolverMetrics.DijkstraQueryEvent event = new SolverMetrics.DijkstraQueryEvent();
+        event.begin();
+        long startNanos = SolverMetrics.ENABLED ? System.nanoTime() : 0L;
+        long relaxations = 0; // Per-query count for the JFR event
+
         // Priority queue (min-heap) to store nodes with the smallest known distances
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingInt(node -> node.distance));
+        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingLong(node -> node.distance));
         
-        // Map to store the shortest distance from the start node to each node
-        Map<String, Integer> distances = new HashMap<>();
+        // Map to store the shortest distance from the start node to each node; long, since a
+        // route over int weights can add up past Integer.MAX_VALUE
+        Map<String, Long> distances = new HashMap<>();
         
         // Map to track the previous node in the shortest path
         Map<String, String> previous = new HashMap<>();
@@ -90,29 +177,53 @@ public class MapNavigator {
 
         // Initialize distances: Set all to infinity except the start node
         for (String node : graph.keySet()) {
-            distances.put(node, Integer.MAX_VALUE);
+            distances.put(node, Long.MAX_VALUE);
         }
-        distances.put(start, 0);
+        distances.put(start, 0L);
         pq.add(new Node(start, 0)); // Start node with distance 0
 
         while (!pq.isEmpty()) {
             Node current = pq.poll(); // Retrieve node with smallest known distance
-            if (visited.contains(current.name)) continue;
+            if (SolverMetrics.ENABLED) {
+                SolverMetrics.DIJKSTRA_HEAP_POLLS.increment();
+            }
+            if (visited.contains(current.name)) {
+                if (SolverMetrics.ENABLED) {
+                    SolverMetrics.DIJKSTRA_STALE_ENTRIES.increment(); // Outdated duplicate left in the heap
+                }
+                continue;
+            }
             visited.add(current.name);
 
             // Iterate through neighbors of the current node
             for (Map.Entry<String, Integer> neighbor : graph.get(current.name).entrySet()) {
                 String neighborName = neighbor.getKey();
-                int newDistance = distances.get(current.name) + neighbor.getValue();
-                
+                long newDistance = distances.get(current.name) + neighbor.getValue();
+                relaxations++;
+
                 // If a shorter path is found, update the distance and priority queue
                 if (newDistance < distances.get(neighborName)) {
                     distances.put(neighborName, newDistance);
                     previous.put(neighborName, current.name);
                     pq.add(new Node(neighborName, newDistance));
+                    if (SolverMetrics.ENABLED) {
+                        SolverMetrics.DIJKSTRA_HEAP_PUSHES.increment();
+                    }
                 }
             }
         }
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.DIJKSTRA_RELAXATIONS.add(relaxations);
+            SolverMetrics.DIJKSTRA_QUERY_TIME.record(System.nanoTime() - startNanos);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.start = start;
+            event.end = end;
+            event.settled = visited.size();
+            event.relaxations = relaxations;
+            event.commit();
+        }
 
         // Construct the shortest path from end to start
         List<String> path = new ArrayList<>();
@@ -129,9 +240,9 @@ public class MapNavigator {
  */
 class Node {
     String name; // Name of the node (location)
-    int distance; // Distance from the start node
+    long distance; // Distance from the start node
 
-    public Node(String name, int distance) {
+    public Node(String name, long distance) {
         this.name = name;
         this.distance = distance;
     }
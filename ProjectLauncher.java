@@ -1,5 +1,17 @@
 import java.awt.*;  // Import AWT for layout management
+import java.io.BufferedReader; // Reading the ready line of a measured child JVM
+import java.io.IOException; // Starting child JVMs
+import java.io.InputStreamReader; // Child JVM output
+import java.lang.reflect.Method; // Calling a tool's main() once its class is loaded
 import java.net.URI;  // Import URI to open GitHub link in browser
+import java.nio.file.Files; // Checking that the CDS files are present and current
+import java.nio.file.Path; // Locations of the class directory and CDS files
+import java.nio.file.Paths; // Building paths
+import java.util.ArrayList; // Child JVM command lines
+import java.util.Arrays; // Sorting startup samples
+import java.util.List; // Child JVM command lines
+import java.util.spi.ToolProvider; // The JDK's jar tool, for the CDS class path
+import java.util.stream.Stream; // Walking the class directory
 import javax.swing.*;  // Import Swing for GUI components
 
 /**
@@ -11,10 +23,59 @@ import javax.swing.*;  // Import Swing for GUI components
  * 4. File Zipper (Greedy Huffman Encoder)
  * 5. Sudoku Solver (Backtracking)
  *
+ * Tools are listed by class name and only loaded when first launched. A tool can run
+ * in this JVM or in its own child JVM, so a crash or heavy work in one tool leaves the
+ * others alone. Child JVMs start from an AppCDS archive when one has been built.
+ *
+ * Because tools may share this JVM, every tool window uses DISPOSE_ON_CLOSE rather than
+ * EXIT_ON_CLOSE: closing one tool must not end the launcher or the other open tools.
+ *
+ * Command line:
+ *   java ProjectLauncher                     Open the launcher
+ *   java ProjectLauncher --cds               Build the AppCDS archives (cds/ directory)
+ *   java ProjectLauncher --measure [runs]    Time cold start of each tool, with and without CDS
+ *   java ProjectLauncher --run Tool [args]   Run one tool (used for child JVMs)
+ *
  * Source Code: Replace with your GitHub URL
  */
 public class ProjectLauncher {
+    private static final Path CDS_DIRECTORY = Paths.get(System.getProperty("launcher.cds", "cds"));
+    private static final Path CDS_JAR = CDS_DIRECTORY.resolve("launcher.jar"); // CDS only archives classes from jars
+    private static final String READY = "launcher-ready"; // Printed by a child JVM once its window is up
+
+    /**
+     * One launchable tool. Only the class name is known up front; the class is
+     * loaded and its main() looked up on the first launch.
+     */
+    private static final class Tool {
+        final String label;
+        final String className;
+        private Method main;
+
+        Tool(String label, String className) {
+            this.label = label;
+            this.className = className;
+        }
+
+        synchronized Method main() throws ReflectiveOperationException {
+            if (main == null) {
+                main = Class.forName(className).getMethod("main", String[].class);
+            }
+            return main;
+        }
+    }
+
+    // Registry of tools shown as buttons, in order
+    private static final Tool[] TOOLS = {
+        new Tool("Snake Game (using Arrays)", "SnakeGame"),
+        new Tool("Map Navigator (Dijkstra's Algorithm)", "MapNavigator"),
+        new Tool("Cash Flow Minimizer (Graphs,Multisets,Heaps)", "CashFlowMinimizer"),
+        new Tool("File Zipper (Greedy Huffman Encoder)", "FileZipperGUI"),
+        new Tool("Sudoku Solver (Backtracking)", "SudokuSolverGUI"),
+    };
+
     private JFrame mainFrame;  // Main GUI window to hold all components
+    private JCheckBox separateProcess; // Run tools in their own JVM
 
     /**
      * Constructor to initialize and display the GUI.
@@ -23,39 +84,32 @@ public class ProjectLauncher {
         // Create the main window with title "Project Launcher"
         mainFrame = new JFrame("Project Launcher");
         mainFrame.setSize(500, 450);  // Adjusted window size for better fit
-        mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);  // Exit application when closed
-        mainFrame.setLayout(new GridLayout(8, 1)); // Increased to 8 rows to fit all buttons properly
+        // Dispose rather than exit, so closing the launcher leaves open tools running
+        mainFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        mainFrame.setLayout(new GridLayout(TOOLS.length + 4, 1)); // Labels, one row per tool, options, GitHub
 
         // Heading labels
         JLabel label = new JLabel("Select a Project", SwingConstants.CENTER);
         JLabel label2 = new JLabel("These projects cover DSA topics using Java.", SwingConstants.CENTER);
-        
+
         // Add labels to the main window
         mainFrame.add(label);
         mainFrame.add(label2);
 
-        // Create buttons for each project with concise labels
-        JButton snakeGameButton = new JButton("Snake Game (using Arrays)");
-        JButton mapNavigatorButton = new JButton("Map Navigator (Dijkstra's Algorithm)");
-        JButton cashFlowButton = new JButton("Cash Flow Minimizer (Graphs,Multisets,Heaps)");
-        JButton fileZipperButton = new JButton("File Zipper (Greedy Huffman Encoder)");
-        JButton sudokuSolverButton = new JButton("Sudoku Solver (Backtracking)");
-        JButton githubButton = new JButton("View Source Code on GitHub");
+        // Create a button for each registered tool
+        for (Tool tool : TOOLS) {
+            JButton button = new JButton(tool.label);
+            button.addActionListener(e -> launchProject(tool));
+            mainFrame.add(button);
+        }
 
-        // Add event listeners to handle button clicks
-        snakeGameButton.addActionListener(e -> launchProject("Snakegame"));
-        mapNavigatorButton.addActionListener(e -> launchProject("MapNavigator"));
-        cashFlowButton.addActionListener(e -> launchProject("CashFlowMinimizer"));
-        fileZipperButton.addActionListener(e -> launchProject("FileZipper"));
-        sudokuSolverButton.addActionListener(e -> launchProject("SudokuSolverGUI"));
-        githubButton.addActionListener(e -> openGitHubRepo());
+        separateProcess = new JCheckBox("Run each project in its own JVM"
+                + (Files.exists(CDS_JAR) ? " (CDS)" : ""));
+        separateProcess.setHorizontalAlignment(SwingConstants.CENTER);
+        mainFrame.add(separateProcess);
 
-        // Add buttons to the GUI window
-        mainFrame.add(snakeGameButton);
-        mainFrame.add(mapNavigatorButton);
-        mainFrame.add(cashFlowButton);
-        mainFrame.add(fileZipperButton);
-        mainFrame.add(sudokuSolverButton);
+        JButton githubButton = new JButton("View Source Code on GitHub");
+        githubButton.addActionListener(e -> openGitHubRepo());
         mainFrame.add(githubButton); // Add GitHub button to the GUI
 
         // Make the GUI visible to the user
@@ -63,36 +117,21 @@ public class ProjectLauncher {
     }
 
     /**
-     * Method to launch the selected project. It calls the respective main()
-     * method of the selected Java class.
+     * Method to launch the selected project, either by calling its main() method
+     * in this JVM or by starting a child JVM for it.
      *
-     * @param projectName The name of the project to launch.
+     * @param tool The project to launch.
      */
-    private void launchProject(String projectName) {
+    private void launchProject(Tool tool) {
         try {
-            switch (projectName) {
-                case "Snakegame":
-                    SnakeGame.main(new String[]{});  // Call the main() method of Snakegame
-                    break;
-                case "MapNavigator":
-                    MapNavigator.main(new String[]{});  // Call the main() method of MapNavigator
-                    break;
-                case "CashFlowMinimizer":
-                    CashFlowMinimizer.main(new String[]{});  // Call the main() method of CashFlowMinimizer
-                    break;
-                case "FileZipper":
-                    FileZipperGUI.main(new String[]{});  // Call the main() method of FileZipper
-                    break;
-                case "SudokuSolverGUI":
-                    SudokuSolverGUI.main(new String[]{});  // Call the main() method of SudokuSolverGUI
-                    break;
-                default:
-                    // Show an error message if project is not found
-                    JOptionPane.showMessageDialog(mainFrame, "Project not found!");
+            if (separateProcess.isSelected()) {
+                new ProcessBuilder(childCommand(tool.className, true, false)).inheritIO().start();
+            } else {
+                tool.main().invoke(null, (Object) new String[]{});  // Call the main() method of the project
             }
         } catch (Exception e) {
             // Show an error message if project fails to launch
-            JOptionPane.showMessageDialog(mainFrame, "Error launching " + projectName);
+            JOptionPane.showMessageDialog(mainFrame, "Error launching " + tool.label);
         }
     }
 
@@ -110,11 +149,203 @@ public class ProjectLauncher {
         }
     }
 
+    /**
+     * Builds the command line of a child JVM running one tool.
+     * @param cds   Use the tool's CDS archive if it is present and newer than the classes.
+     * @param probe Make the child print READY once its window is showing, then exit.
+     */
+    private static List<String> childCommand(String className, boolean cds, boolean probe) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        Path archive = CDS_DIRECTORY.resolve(className + ".jsa");
+        if (cds && archiveIsCurrent(archive)) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+            command.add("-Xshare:auto"); // Fall back to a normal start if the archive does not match
+            command.add("-cp");
+            command.add(CDS_JAR.toString());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+        }
+        command.add("ProjectLauncher");
+        if (probe) {
+            command.add("--probe");
+        }
+        command.add("--run");
+        command.add(className);
+        return command;
+    }
+
+    /**
+     * A child started from the jar would run the classes as they were when it was built,
+     * so the archive is only used while no class file is newer than the jar.
+     */
+    private static boolean archiveIsCurrent(Path archive) throws IOException {
+        if (!Files.exists(archive) || !Files.exists(CDS_JAR)) {
+            return false;
+        }
+        Path classes = classDirectory();
+        if (classes == null) {
+            return true; // Running from a jar already
+        }
+        long built = Files.getLastModifiedTime(CDS_JAR).toMillis();
+        try (Stream<Path> files = Files.list(classes)) {
+            return files.filter(f -> f.toString().endsWith(".class"))
+                    .allMatch(f -> f.toFile().lastModified() <= built);
+        }
+    }
+
+    /**
+     * Returns the directory holding the launcher's class files, or null when running from a jar.
+     */
+    private static Path classDirectory() {
+        try {
+            Path location = Paths.get(ProjectLauncher.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return Files.isDirectory(location) ? location : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds cds/launcher.jar from the class directory, then one dynamic AppCDS archive per
+     * tool (and one for the launcher) by starting each once with -XX:ArchiveClassesAtExit.
+     */
+    private static void buildArchives() throws IOException, InterruptedException {
+        Files.createDirectories(CDS_DIRECTORY);
+        Path classes = classDirectory();
+        if (classes == null) {
+            System.err.println("Run --cds from a class directory, e.g. java -cp . ProjectLauncher --cds");
+            return;
+        }
+        ToolProvider jar = ToolProvider.findFirst("jar")
+                .orElseThrow(() -> new IOException("The jar tool is not available in this JDK"));
+        Files.deleteIfExists(CDS_JAR);
+        int status = jar.run(System.out, System.err, "--create", "--file", CDS_JAR.toString(),
+                "-C", classes.toString(), ".");
+        if (status != 0) {
+            throw new IOException("jar failed with status " + status);
+        }
+        for (String className : entryPoints()) {
+            Path archive = CDS_DIRECTORY.resolve(className + ".jsa");
+            Files.deleteIfExists(archive);
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-XX:ArchiveClassesAtExit=" + archive);
+            command.add("-cp");
+            command.add(CDS_JAR.toString());
+            command.addAll(Arrays.asList("ProjectLauncher", "--probe", "--run", className));
+            long start = System.nanoTime();
+            int exit = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor();
+            System.out.printf("%-20s %s in %.0f ms%n", className,
+                    exit == 0 && Files.exists(archive) ? "archived" : "FAILED (exit " + exit + ")",
+                    (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    /**
+     * Starts each tool in a fresh JVM several times, with and without its CDS archive, and
+     * reports the time from process start until its first window is showing.
+     */
+    private static void measureStartup(int runs) throws IOException, InterruptedException {
+        System.out.printf("%-20s %14s %14s%n", "cold start (ms)", "no CDS", "AppCDS");
+        for (String className : entryPoints()) {
+            double plain = medianStartup(className, false, runs);
+            double shared = archiveIsCurrent(CDS_DIRECTORY.resolve(className + ".jsa"))
+                    ? medianStartup(className, true, runs) : Double.NaN;
+            System.out.printf("%-20s %14.0f %14s%n", className, plain,
+                    Double.isNaN(shared) ? "run --cds" : String.format("%.0f", shared));
+        }
+    }
+
+    private static double medianStartup(String className, boolean cds, int runs) throws IOException, InterruptedException {
+        double[] samples = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            Process child = new ProcessBuilder(childCommand(className, cds, true)).redirectErrorStream(true).start();
+            samples[i] = Double.NaN;
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.equals(READY)) {
+                        samples[i] = (System.nanoTime() - start) / 1e6;
+                    }
+                }
+            }
+            child.waitFor();
+        }
+        Arrays.sort(samples); // NaN (never ready) sorts last
+        return samples[runs / 2];
+    }
+
+    /**
+     * The launcher itself plus every tool.
+     */
+    private static List<String> entryPoints() {
+        List<String> names = new ArrayList<>();
+        names.add("ProjectLauncher");
+        for (Tool tool : TOOLS) {
+            names.add(tool.className);
+        }
+        return names;
+    }
+
+    /**
+     * Runs one tool's main() in this JVM. With probe, waits for its first window to show
+     * (or for main() to return, for tools without a window), prints READY and exits.
+     */
+    private static void runTool(String className, String[] args, boolean probe) throws Exception {
+        if (className.equals("ProjectLauncher")) {
+            SwingUtilities.invokeLater(ProjectLauncher::new);
+        } else {
+            Class.forName(className).getMethod("main", String[].class).invoke(null, (Object) args);
+        }
+        if (!probe) {
+            return;
+        }
+        boolean[] showing = new boolean[1];
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        boolean anyWindow;
+        do {
+            EventQueue.invokeAndWait(() -> {
+                // Runs after any invokeLater the tool queued, so its frames exist by now
+                showing[0] = false;
+                for (Window window : Window.getWindows()) {
+                    showing[0] |= window.isShowing();
+                }
+            });
+            anyWindow = Window.getWindows().length > 0;
+        } while (anyWindow && !showing[0] && System.nanoTime() < deadline);
+        System.out.println(READY);
+        System.exit(0);
+    }
+
     /**
      * Main method - Entry point of the program. Creates an instance of
      * ProjectLauncher and starts the GUI.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && (args[0].equals("--cds") || args[0].equals("--measure"))
+                && GraphicsEnvironment.isHeadless()) {
+            // Without a display the tools fail before their windows show; nothing useful to archive or time
+            System.err.println(args[0] + " needs a display: the projects must be able to open their windows");
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--cds")) {
+            buildArchives();
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--measure")) {
+            measureStartup(args.length >= 2 ? Integer.parseInt(args[1]) : 5);
+            return;
+        }
+        boolean probe = args.length >= 1 && args[0].equals("--probe");
+        int at = probe ? 1 : 0;
+        if (args.length >= at + 2 && args[at].equals("--run")) {
+            runTool(args[at + 1], Arrays.copyOfRange(args, at + 2, args.length), probe);
+            return;
+        }
         // Run GUI in event dispatch thread for thread safety
         SwingUtilities.invokeLater(ProjectLauncher::new);
     }
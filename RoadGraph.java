@@ -0,0 +1,909 @@
+import java.util.ArrayList; // Builder edge lists
+import java.util.Arrays; // Growing the heap, filling arrays
+import java.util.HashMap; // Builder lookups by name and by node pair
+import java.util.List; // Builder edge lists
+import java.util.Map; // Builder lookups by name and by node pair
+import java.util.Random; // Seeded benchmark networks
+
+/**
+ * Road Graph - compact road network with turn restrictions, turn costs and
+ * time-of-day travel times, for MapNavigator.
+ *
+ * 1. Layout - edges are stored by source node (CSR): the edges leaving node v are
+ *    firstEdge[v] .. firstEdge[v + 1] - 1, with head and travel time in int arrays.
+ * 2. Time - a daily profile shape is a list of (time of day, per mille of the base travel
+ *    time) points, interpolated linearly and wrapping around midnight. Many roads share one
+ *    shape (rush hour on main roads, say), so an edge only stores a short shape id. Every
+ *    road's profile must be FIFO (leaving later never arrives earlier), which keeps
+ *    time-dependent Dijkstra exact.
+ * 3. Turns - restrictions and costs are keyed by (incoming edge, outgoing edge). The search
+ *    is edge-based only where it has to be: arriving at a node that has turn entries creates
+ *    one state per incoming edge, every other node stays a single state. Which edges have a
+ *    state of their own is a bit set with a rank per 64 edges, not an int per edge.
+ * 4. Search - arrival times, parents and the heap live in a reusable Search, so a query
+ *    allocates nothing but its result. Each thread needs its own Search.
+ *
+ * Benchmark: java RoadGraph --bench [grid side] [queries]
+ */
+final class RoadGraph {
+    static final int PERIOD = 24 * 60 * 60; // Profiles repeat daily; all times are in seconds
+    static final int FORBIDDEN = -1; // Turn cost marking a banned turn
+
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int nodes;
+    private final int[] firstEdge; // Out-edges of v are firstEdge[v] .. firstEdge[v + 1] - 1
+    private final int[] head; // Target node per edge
+    private final int[] seconds; // Travel time per edge when it has no profile
+
+    // Travel time profiles; null when no edge has one
+    private final short[] edgeShape; // Profile shape per edge, -1 for a constant travel time
+    private final int[] shapeFirst; // Points of shape s are shapeFirst[s] .. shapeFirst[s + 1] - 1
+    private final int[] shapeTime; // Time of day of each point, increasing per shape
+    private final int[] shapePermille; // Travel time at that time, per mille of the edge's seconds
+
+    // Turn entries; null when there are none. Edge state k is search state nodes + k
+    private final long[] stateBits; // Bit e set when edge e leads into a node with turn entries
+    private final int[] stateRank; // Edge states before each 64-edge word of stateBits
+    private final int[] stateEdge; // Incoming edge of edge state k
+    private final int[] turnFirst; // Entries for edge state k are turnFirst[k] .. turnFirst[k + 1] - 1
+    private final int[] turnTo; // Outgoing edge, increasing per incoming edge
+    private final int[] turnSeconds; // Extra time for the turn, or FORBIDDEN
+
+    // Incoming edges per node, built on the first lower bound query
+    private volatile int[] reverseFirst; // Edges into v are reverseEdge[reverseFirst[v] .. reverseFirst[v + 1] - 1]
+    private int[] reverseEdge;
+    private int[] reverseTail; // Source node of each reverse entry
+
+    private RoadGraph(Builder builder) {
+        names = builder.names.toArray(new String[0]);
+        ids = new HashMap<>(builder.ids);
+        nodes = names.length;
+        int edges = builder.from.size();
+
+        // Counting sort of the builder's edges by source; order[] maps builder edge -> CSR edge
+        firstEdge = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) {
+            firstEdge[builder.from.get(e) + 1]++;
+        }
+        for (int v = 0; v < nodes; v++) {
+            firstEdge[v + 1] += firstEdge[v];
+        }
+        int[] next = Arrays.copyOf(firstEdge, nodes);
+        int[] order = new int[edges];
+        head = new int[edges];
+        seconds = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            int slot = next[builder.from.get(e)]++;
+            order[e] = slot;
+            head[slot] = builder.to.get(e);
+            seconds[slot] = builder.seconds.get(e);
+        }
+
+        if (builder.edgeShapes.isEmpty()) {
+            edgeShape = null;
+            shapeFirst = shapeTime = shapePermille = null;
+        } else {
+            int shapes = builder.shapes.size();
+            shapeFirst = new int[shapes + 1];
+            for (int shape = 0; shape < shapes; shape++) {
+                shapeFirst[shape + 1] = shapeFirst[shape] + builder.shapes.get(shape).length / 2;
+            }
+            shapeTime = new int[shapeFirst[shapes]];
+            shapePermille = new int[shapeFirst[shapes]];
+            for (int shape = 0, p = 0; shape < shapes; shape++) {
+                int[] points = builder.shapes.get(shape); // time, per mille, time, per mille, ...
+                for (int i = 0; i < points.length; i += 2, p++) {
+                    shapeTime[p] = points[i];
+                    shapePermille[p] = points[i + 1];
+                }
+            }
+            edgeShape = new short[edges];
+            Arrays.fill(edgeShape, (short) -1);
+            for (Map.Entry<Integer, Integer> entry : builder.edgeShapes.entrySet()) {
+                int e = order[entry.getKey()];
+                edgeShape[e] = (short) (int) entry.getValue();
+                checkProfile(e);
+            }
+        }
+
+        if (builder.turns.isEmpty()) {
+            stateBits = null;
+            stateRank = stateEdge = turnFirst = turnTo = turnSeconds = null;
+        } else {
+            // Every edge into a node with turn entries gets a state of its own, numbered in edge order
+            boolean[] turnNode = new boolean[nodes];
+            for (long key : builder.turns.keySet()) {
+                turnNode[head[order[(int) (key >>> 32)]]] = true;
+            }
+            stateBits = new long[(edges + 63) >>> 6];
+            stateRank = new int[stateBits.length];
+            int edgeStates = 0;
+            for (int e = 0; e < edges; e++) {
+                if ((e & 63) == 0) {
+                    stateRank[e >>> 6] = edgeStates;
+                }
+                if (turnNode[head[e]]) {
+                    stateBits[e >>> 6] |= 1L << e;
+                    edgeStates++;
+                }
+            }
+            stateEdge = new int[edgeStates];
+            for (int e = 0; e < edges; e++) {
+                if (turnNode[head[e]]) {
+                    stateEdge[arrivalState(e) - nodes] = e;
+                }
+            }
+
+            // Entries sorted by (CSR incoming edge, CSR outgoing edge), so by edge state too
+            long[] keys = new long[builder.turns.size()];
+            int k = 0;
+            for (long key : builder.turns.keySet()) {
+                keys[k++] = (long) order[(int) (key >>> 32)] << 32 | order[(int) key];
+            }
+            Arrays.sort(keys);
+            int[] builderEdge = new int[edges]; // Inverse of order
+            for (int e = 0; e < edges; e++) {
+                builderEdge[order[e]] = e;
+            }
+            turnFirst = new int[edgeStates + 1];
+            turnTo = new int[keys.length];
+            turnSeconds = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                int in = (int) (keys[i] >>> 32);
+                turnFirst[arrivalState(in) - nodes + 1]++;
+                turnTo[i] = (int) keys[i];
+                turnSeconds[i] = builder.turns.get((long) builderEdge[in] << 32 | builderEdge[turnTo[i]]);
+            }
+            for (int state = 0; state < edgeStates; state++) {
+                turnFirst[state + 1] += turnFirst[state];
+            }
+        }
+    }
+
+    // Profile of edge e: its slowest travel time fits an int, and it is FIFO (over every segment
+    // of its shape, travel time drops no faster than the clock runs)
+    private void checkProfile(int e) {
+        int shape = edgeShape[e];
+        int first = shapeFirst[shape];
+        int last = shapeFirst[shape + 1] - 1;
+        for (int p = first; p <= last; p++) {
+            if ((long) seconds[e] * shapePermille[p] / 1000 > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Profile of " + names[nodeFrom(e)] + " -> " + names[head[e]]
+                        + " gives a travel time over " + Integer.MAX_VALUE + " seconds");
+            }
+            int q = p == last ? first : p + 1;
+            long span = q > p ? shapeTime[q] - shapeTime[p] : shapeTime[q] + PERIOD - shapeTime[p];
+            if (q != p && (long) (shapePermille[q] - shapePermille[p]) * seconds[e] < -span * 1000) {
+                throw new IllegalArgumentException("Profile of " + names[nodeFrom(e)] + " -> " + names[head[e]]
+                        + " is not FIFO after time " + shapeTime[p]);
+            }
+        }
+    }
+
+    private int nodeFrom(int e) {
+        int low = 0;
+        int high = nodes - 1;
+        while (low < high) { // Last node whose first edge is at or before e
+            int mid = (low + high + 1) >>> 1;
+            if (firstEdge[mid] <= e) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // Search state reached by arriving over edge e: its head, or the edge's own state
+    int arrivalState(int e) {
+        if (stateBits == null) {
+            return head[e];
+        }
+        long word = stateBits[e >>> 6];
+        long bit = 1L << e;
+        return (word & bit) == 0 ? head[e] : nodes + stateRank[e >>> 6] + Long.bitCount(word & (bit - 1));
+    }
+
+    /**
+     * Collects locations, roads, profiles and turns, then packs them into a RoadGraph.
+     */
+    static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<Integer> from = new ArrayList<>();
+        private final List<Integer> to = new ArrayList<>();
+        private final List<Integer> seconds = new ArrayList<>();
+        private final Map<Long, Integer> edgeIds = new HashMap<>(); // (from << 32 | to) -> builder edge
+        private final List<int[]> shapes = new ArrayList<>();
+        private final Map<Integer, Integer> edgeShapes = new HashMap<>(); // Builder edge -> shape
+        private final Map<Long, Integer> turns = new HashMap<>(); // (in edge << 32 | out edge) -> seconds
+
+        int node(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                names.add(name);
+                ids.put(name, id);
+            }
+            return id;
+        }
+
+        /**
+         * Adds a one-way road, or changes its travel time if it already exists.
+         */
+        Builder road(String fromName, String toName, int travelSeconds) {
+            if (travelSeconds < 0) {
+                throw new IllegalArgumentException("Travel time must not be negative");
+            }
+            int a = node(fromName);
+            int b = node(toName);
+            Integer edge = edgeIds.get(key(a, b));
+            if (edge != null) {
+                seconds.set(edge, travelSeconds);
+            } else {
+                edgeIds.put(key(a, b), from.size());
+                from.add(a);
+                to.add(b);
+                seconds.add(travelSeconds);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a daily profile shape for roads to share.
+         * @param times    Times of day in seconds, increasing, within [0, PERIOD).
+         * @param permille Travel time at each of those times, per mille of a road's base time.
+         * @return The shape id to pass to profile.
+         */
+        int shape(int[] times, int[] permille) {
+            if (times.length == 0 || times.length != permille.length) {
+                throw new IllegalArgumentException("A shape needs matching, non-empty time and per mille lists");
+            }
+            if (shapes.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("At most " + (Short.MAX_VALUE + 1) + " shapes");
+            }
+            int[] points = new int[times.length * 2];
+            for (int i = 0; i < times.length; i++) {
+                if (times[i] < 0 || times[i] >= PERIOD || (i > 0 && times[i] <= times[i - 1])) {
+                    throw new IllegalArgumentException("Shape times must increase within one day");
+                }
+                if (permille[i] < 0 || permille[i] > 1_000_000) {
+                    throw new IllegalArgumentException("Shape values must be 0 - 1,000,000 per mille");
+                }
+                points[2 * i] = times[i];
+                points[2 * i + 1] = permille[i];
+            }
+            shapes.add(points);
+            return shapes.size() - 1;
+        }
+
+        /**
+         * Makes a road's travel time follow a shape. build() rejects the road if, with its
+         * base time, leaving later could arrive earlier (not FIFO).
+         */
+        Builder profile(String fromName, String toName, int shape) {
+            if (shape < 0 || shape >= shapes.size()) {
+                throw new IllegalArgumentException("Unknown shape " + shape);
+            }
+            edgeShapes.put(edge(fromName, toName), shape);
+            return this;
+        }
+
+        /**
+         * Bans turning from road from -> via onto road via -> to.
+         */
+        Builder restrictTurn(String fromName, String via, String toName) {
+            turns.put(key(edge(fromName, via), edge(via, toName)), FORBIDDEN);
+            return this;
+        }
+
+        /**
+         * Adds a delay for turning from road from -> via onto road via -> to.
+         */
+        Builder turnCost(String fromName, String via, String toName, int turnSeconds) {
+            if (turnSeconds < 0) {
+                throw new IllegalArgumentException("Turn cost must not be negative");
+            }
+            long key = key(edge(fromName, via), edge(via, toName));
+            if (turns.getOrDefault(key, 0) != FORBIDDEN) { // A ban stays a ban
+                turns.put(key, turnSeconds);
+            }
+            return this;
+        }
+
+        RoadGraph build() {
+            return new RoadGraph(this);
+        }
+
+        private int edge(String fromName, String toName) {
+            Integer a = ids.get(fromName);
+            Integer b = ids.get(toName);
+            Integer edge = a == null || b == null ? null : edgeIds.get(key(a, b));
+            if (edge == null) {
+                throw new IllegalArgumentException("No road " + fromName + " -> " + toName);
+            }
+            return edge;
+        }
+
+        private static long key(int a, int b) {
+            return (long) a << 32 | b;
+        }
+    }
+
+    int size() {
+        return nodes;
+    }
+
+    /**
+     * @return The id of a location, or -1 if there is none by that name.
+     */
+    int idOf(String name) {
+        return ids.getOrDefault(name, -1);
+    }
+
+    String nameOf(int node) {
+        return names[node];
+    }
+
+    int edgeCount() {
+        return head.length;
+    }
+
+    /**
+     * Bytes held by the graph's arrays, not counting location names.
+     */
+    long memoryBytes() {
+        long bytes = (long) Integer.BYTES * (firstEdge.length + head.length + seconds.length);
+        if (edgeShape != null) {
+            bytes += (long) Short.BYTES * edgeShape.length
+                    + (long) Integer.BYTES * (shapeFirst.length + shapeTime.length + shapePermille.length);
+        }
+        if (stateBits != null) {
+            bytes += (long) Long.BYTES * stateBits.length + (long) Integer.BYTES
+                    * (stateRank.length + stateEdge.length + turnFirst.length + turnTo.length + turnSeconds.length);
+        }
+        return bytes;
+    }
+
+    // Number of search states: one per node plus one per edge into a node with turn entries
+    private int states() {
+        return nodes + (stateEdge == null ? 0 : stateEdge.length);
+    }
+
+    int nodeOf(int state) {
+        return state < nodes ? state : head[stateEdge[state - nodes]];
+    }
+
+    /**
+     * Travel time over edge e when leaving at time t (seconds since midnight of day 0).
+     */
+    int travelTime(int e, int t) {
+        if (edgeShape == null || edgeShape[e] < 0) {
+            return seconds[e];
+        }
+        int shape = edgeShape[e];
+        int first = shapeFirst[shape];
+        int last = shapeFirst[shape + 1] - 1;
+        int time = Math.floorMod(t, PERIOD);
+        int p = first;
+        while (p <= last && shapeTime[p] <= time) {
+            p++;
+        }
+        // Interpolate between the points around time, wrapping around midnight
+        int before = p == first ? last : p - 1;
+        int after = p > last ? first : p;
+        long base = seconds[e];
+        if (before == after) {
+            return (int) (base * shapePermille[before] / 1000);
+        }
+        long t0 = shapeTime[before];
+        long t1 = shapeTime[after];
+        long at = time;
+        if (t1 <= t0) {
+            t1 += PERIOD;
+            if (at < t0) {
+                at += PERIOD;
+            }
+        }
+        // One rounding of the exact line, so a FIFO profile stays FIFO in whole seconds. The line
+        // is base * scaled / span; splitting scaled by span keeps every product far below 2^63
+        long p0 = shapePermille[before];
+        long p1 = shapePermille[after];
+        long span = 1000 * (t1 - t0);
+        long scaled = p0 * (t1 - t0) + (p1 - p0) * (at - t0); // At most 10^6 * PERIOD
+        return (int) (base * (scaled / span) + base * (scaled % span) / span);
+    }
+
+    /**
+     * The edge from u to v, or -1 if there is none.
+     */
+    int edgeBetween(int u, int v) {
+        for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+            if (head[e] == v) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Extra time for turning from edge in onto edge out: 0, a turn cost, or FORBIDDEN.
+     */
+    int turnSeconds(int in, int out) {
+        int state = arrivalState(in);
+        if (state < nodes) {
+            return 0;
+        }
+        for (int t = turnFirst[state - nodes]; t < turnFirst[state - nodes + 1]; t++) {
+            if (turnTo[t] == out) {
+                return turnSeconds[t];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Times at which a drive along the given locations reaches each of them, or null if
+     * the drive uses a missing road or a banned turn.
+     */
+    int[] timesAlong(int[] path, int departure) {
+        int[] times = new int[path.length];
+        times[0] = departure;
+        int previous = -1;
+        long time = departure;
+        for (int i = 1; i < path.length; i++) {
+            int e = edgeBetween(path[i - 1], path[i]);
+            if (e < 0) {
+                return null;
+            }
+            if (previous >= 0) {
+                int turn = turnSeconds(previous, e);
+                if (turn == FORBIDDEN) {
+                    return null;
+                }
+                time += turn;
+            }
+            time += travelTime(e, (int) time);
+            if (time >= Integer.MAX_VALUE) {
+                return null;
+            }
+            times[i] = (int) time;
+            previous = e;
+        }
+        return times;
+    }
+
+    /**
+     * Lower bound on the time from every location to target: a backward Dijkstra with each
+     * road at its fastest time of day and no turn costs. Integer.MAX_VALUE where target
+     * cannot be reached. As an A* potential it is consistent, so searches stay exact.
+     */
+    int[] lowerBoundsTo(int target) {
+        int[] reverseFirst = this.reverseFirst;
+        if (reverseFirst == null) {
+            buildReverse();
+            reverseFirst = this.reverseFirst;
+        }
+        int[] bound = new int[nodes];
+        Arrays.fill(bound, Integer.MAX_VALUE);
+        bound[target] = 0;
+        LongHeap heap = new LongHeap();
+        heap.push(0, target);
+        while (heap.size() > 0) {
+            long top = heap.pop();
+            int v = (int) top;
+            if (bound[v] != (int) (top >>> 32)) {
+                continue;
+            }
+            for (int r = reverseFirst[v]; r < reverseFirst[v + 1]; r++) {
+                int e = reverseEdge[r];
+                int u = reverseTail[r];
+                long candidate = (long) bound[v] + fastest(e);
+                if (candidate < bound[u]) {
+                    bound[u] = (int) candidate;
+                    heap.push((int) candidate, u);
+                }
+            }
+        }
+        return bound;
+    }
+
+    // Fastest travel time over edge e at any time of day
+    private int fastest(int e) {
+        if (edgeShape == null || edgeShape[e] < 0) {
+            return seconds[e];
+        }
+        int shape = edgeShape[e];
+        int lowest = Integer.MAX_VALUE;
+        for (int p = shapeFirst[shape]; p < shapeFirst[shape + 1]; p++) {
+            lowest = Math.min(lowest, shapePermille[p]); // Linear pieces peak and dip at their points
+        }
+        return (int) ((long) seconds[e] * lowest / 1000);
+    }
+
+    private synchronized void buildReverse() {
+        if (reverseFirst != null) {
+            return;
+        }
+        int[] first = new int[nodes + 1];
+        for (int e = 0; e < head.length; e++) {
+            first[head[e] + 1]++;
+        }
+        for (int v = 0; v < nodes; v++) {
+            first[v + 1] += first[v];
+        }
+        int[] next = Arrays.copyOf(first, nodes);
+        reverseEdge = new int[head.length];
+        reverseTail = new int[head.length];
+        for (int u = 0; u < nodes; u++) {
+            for (int e = firstEdge[u]; e < firstEdge[u + 1]; e++) {
+                int slot = next[head[e]]++;
+                reverseEdge[slot] = e;
+                reverseTail[slot] = u;
+            }
+        }
+        reverseFirst = first; // Published last, through the volatile write
+    }
+
+    /**
+     * A route found by Search: the locations passed and the time each one is reached.
+     */
+    static final class Route {
+        final int[] nodes;
+        final int[] times; // times[0] is the departure
+        final int departure;
+        final int arrival;
+
+        Route(int[] nodes, int[] times) {
+            this.nodes = nodes;
+            this.times = times;
+            this.departure = times[0];
+            this.arrival = times[times.length - 1];
+        }
+
+        int seconds() {
+            return arrival - departure;
+        }
+
+        String describe(RoadGraph graph) {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < nodes.length; i++) {
+                out.append(i == 0 ? "" : " -> ").append(graph.nameOf(nodes[i]));
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * Reusable query state for time-dependent, turn-aware Dijkstra. Not thread-safe.
+     */
+    static final class Search {
+        private final RoadGraph graph;
+        private final int[] arrival; // Earliest known arrival per state
+        private final int[] parent; // Previous state on the best route
+        private final int[] mark; // 2 * generation: reached, 2 * generation + 1: settled
+        private int generation;
+        private final LongHeap heap = new LongHeap(); // (key << 32 | state), lazily deleted
+        private int settled; // States settled by the last query
+        private int[] bannedNode; // == banStamp: the search may not enter this location
+        private int[] bannedEdge; // == banStamp: the search may not use this road
+        private int banStamp;
+
+        Search(RoadGraph graph) {
+            this.graph = graph;
+            int states = graph.states();
+            arrival = new int[states];
+            parent = new int[states];
+            mark = new int[states];
+        }
+
+        /**
+         * Earliest arrival from one location to another when leaving at the given time.
+         * @return The route, or null when to cannot be reached.
+         */
+        Route route(int from, int to, int departure) {
+            return search(from, to, departure, null, null, Integer.MAX_VALUE, false);
+        }
+
+        // Lifts every ban; bans then apply to searches made with banned = true
+        void clearBans() {
+            if (bannedNode == null) {
+                bannedNode = new int[graph.nodes];
+                bannedEdge = new int[graph.head.length];
+            }
+            if (++banStamp == Integer.MAX_VALUE) {
+                Arrays.fill(bannedNode, 0);
+                Arrays.fill(bannedEdge, 0);
+                banStamp = 1;
+            }
+        }
+
+        void banNode(int node) {
+            bannedNode[node] = banStamp;
+        }
+
+        void banEdge(int e) {
+            bannedEdge[e] = banStamp;
+        }
+
+        /**
+         * The general query behind route, for k-shortest and alternative routes.
+         * @param start     Search state to leave from: a location, or graph.arrivalState(edge)
+         *                  to continue a drive that arrived over that edge.
+         * @param potential Lower bounds to 'to' from graph.lowerBoundsTo (A*), or null.
+         * @param penalty   Extra travel time per road, per mille, or null.
+         * @param bound     Give up on routes arriving after this time (with potential: estimated).
+         * @param banned    Whether the bans set since clearBans apply.
+         */
+        Route search(int start, int to, int departure, int[] potential, int[] penalty, int bound, boolean banned) {
+            if (++generation > (Integer.MAX_VALUE >> 1)) { // Stamps about to wrap: start over
+                Arrays.fill(mark, 0);
+                generation = 1;
+            }
+            RoadGraph g = graph;
+            int nodes = g.nodes;
+            int reached = 2 * generation;
+            heap.clear();
+            settled = 0;
+            arrival[start] = departure;
+            parent[start] = -1;
+            mark[start] = reached;
+            heap.push(potential == null ? departure : departure + potential[g.nodeOf(start)], start);
+
+            while (heap.size() > 0) {
+                long top = heap.pop();
+                int state = (int) top;
+                if (mark[state] != reached) {
+                    continue; // Already settled
+                }
+                int node = state < nodes ? state : g.head[g.stateEdge[state - nodes]];
+                int time = arrival[state];
+                if ((int) (top >>> 32) != (potential == null ? time : time + potential[node])) {
+                    continue; // Stale entry
+                }
+                mark[state] = reached + 1;
+                settled++;
+                if (node == to) {
+                    return path(state);
+                }
+
+                // Arriving over an edge into a turn node: walk its turn entries alongside the out-edges
+                int turn = 0;
+                int turnEnd = 0;
+                if (state >= nodes) {
+                    turn = g.turnFirst[state - nodes];
+                    turnEnd = g.turnFirst[state - nodes + 1];
+                }
+                for (int e = g.firstEdge[node], end = g.firstEdge[node + 1]; e < end; e++) {
+                    int leave = time;
+                    if (turn < turnEnd) {
+                        while (turn < turnEnd && g.turnTo[turn] < e) {
+                            turn++;
+                        }
+                        if (turn < turnEnd && g.turnTo[turn] == e) {
+                            if (g.turnSeconds[turn] == FORBIDDEN) {
+                                continue;
+                            }
+                            leave += g.turnSeconds[turn];
+                        }
+                    }
+                    if (banned && (bannedEdge[e] == banStamp || bannedNode[g.head[e]] == banStamp)) {
+                        continue;
+                    }
+                    long travel = g.edgeShape == null ? g.seconds[e] : g.travelTime(e, leave);
+                    if (penalty != null) {
+                        travel += travel * penalty[e] / 1000;
+                    }
+                    long arrive = leave + travel;
+                    long key = arrive;
+                    if (potential != null) {
+                        int lower = potential[g.head[e]];
+                        if (lower == Integer.MAX_VALUE) {
+                            continue; // Cannot reach the target from there
+                        }
+                        key += lower;
+                    }
+                    if (key > bound || key >= Integer.MAX_VALUE) {
+                        continue; // Too late to matter, or beyond any representable time
+                    }
+                    int next = g.arrivalState(e);
+                    int m = mark[next];
+                    if (m == reached + 1 || (m == reached && arrival[next] <= arrive)) {
+                        continue;
+                    }
+                    arrival[next] = (int) arrive;
+                    parent[next] = state;
+                    mark[next] = reached;
+                    heap.push((int) key, next);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * States settled by the last query, a measure of the work it did.
+         */
+        int settled() {
+            return settled;
+        }
+
+        private Route path(int state) {
+            int length = 0;
+            for (int s = state; s != -1; s = parent[s]) {
+                length++;
+            }
+            int[] path = new int[length];
+            int[] times = new int[length];
+            for (int s = state; s != -1; s = parent[s]) {
+                path[--length] = graph.nodeOf(s);
+                times[length] = arrival[s];
+            }
+            return new Route(path, times);
+        }
+    }
+
+    /**
+     * Binary min-heap of (key << 32 | value) entries with non-negative keys.
+     */
+    private static final class LongHeap {
+        private long[] heap = new long[64];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(int key, int value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            long entry = (long) key << 32 | value;
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (heap[up] <= entry) {
+                    break;
+                }
+                heap[i] = heap[up];
+                i = up;
+            }
+            heap[i] = entry;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].equals("--bench")) {
+            System.err.println("Usage: java RoadGraph --bench [grid side] [queries]");
+            return;
+        }
+        int side = args.length >= 2 ? Integer.parseInt(args[1]) : 300;
+        int queries = args.length >= 3 ? Integer.parseInt(args[2]) : 200;
+
+        RoadGraph plain = grid(side, false, false);
+        RoadGraph turns = grid(side, true, false);
+        RoadGraph timed = grid(side, false, true);
+        RoadGraph both = grid(side, true, true);
+        System.out.printf("%d x %d grid: %,d locations, %,d roads%n", side, side, plain.size(), plain.edgeCount());
+
+        Random random = new Random(7);
+        int[] from = new int[queries];
+        int[] to = new int[queries];
+        int[] departure = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            from[q] = random.nextInt(plain.size());
+            to[q] = random.nextInt(plain.size());
+            departure[q] = random.nextInt(PERIOD);
+        }
+        RoadGraph[] graphs = {plain, turns, timed, both};
+        String[] labels = {"static", "turn restrictions + costs", "time-dependent", "turns + time-dependent"};
+        for (int round = 1; round <= 3; round++) {
+            System.out.printf("Round %d%n", round);
+            double plainMillis = 0;
+            for (int i = 0; i < graphs.length; i++) {
+                Search search = new Search(graphs[i]);
+                long settled = 0;
+                long start = System.nanoTime();
+                for (int q = 0; q < queries; q++) {
+                    Route route = search.route(from[q], to[q], departure[q]);
+                    if (route == null || route.nodes[route.nodes.length - 1] != to[q]) {
+                        throw new AssertionError("Grid routes always exist");
+                    }
+                    settled += search.settled();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / queries;
+                if (i == 0) {
+                    plainMillis = millis;
+                }
+                System.out.printf("  %-26s %6.2f ms/query (%.2fx)  %,9d states settled  %,11d bytes (%.2fx)%n",
+                        labels[i], millis, millis / plainMillis, settled / queries,
+                        graphs[i].memoryBytes(), (double) graphs[i].memoryBytes() / plain.memoryBytes());
+            }
+        }
+    }
+
+    // Two-way grid streets. With turns, every fourth intersection bans U-turns and one
+    // random turn and charges 20 s for left turns; with time, a third of the streets
+    // follow one of three rush hour shapes
+    static RoadGraph grid(int side, boolean turns, boolean timed) {
+        Random random = new Random(side);
+        Builder builder = new Builder();
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                builder.node(x + "," + y);
+            }
+        }
+        int[] rushHours = {6 * 3600, 8 * 3600, 10 * 3600, 16 * 3600, 18 * 3600, 20 * 3600};
+        int[] shapes = {
+            builder.shape(rushHours, new int[] {1000, 3000, 1000, 1000, 2000, 1000}),
+            builder.shape(rushHours, new int[] {1000, 1500, 1000, 1000, 2500, 1000}),
+            builder.shape(rushHours, new int[] {1000, 2000, 1200, 1200, 2000, 1000}),
+        };
+        int[] dx = {1, 0, -1, 0};
+        int[] dy = {0, 1, 0, -1};
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + dx[d];
+                    int ny = y + dy[d];
+                    if (nx < 0 || ny < 0 || nx >= side || ny >= side) {
+                        continue;
+                    }
+                    String a = x + "," + y;
+                    String b = nx + "," + ny;
+                    int base = 30 + random.nextInt(90);
+                    builder.road(a, b, base);
+                    if (timed && random.nextInt(3) == 0) {
+                        builder.profile(a, b, shapes[random.nextInt(shapes.length)]);
+                    }
+                }
+            }
+        }
+        if (turns) {
+            for (int y = 1; y < side - 1; y++) {
+                for (int x = 1; x < side - 1; x++) {
+                    if (random.nextInt(4) != 0) {
+                        continue;
+                    }
+                    String via = x + "," + y;
+                    for (int in = 0; in < 4; in++) {
+                        String a = (x - dx[in]) + "," + (y - dy[in]); // Arriving heading in direction 'in'
+                        builder.restrictTurn(a, via, a);
+                        String left = (x + dx[(in + 3) % 4]) + "," + (y + dy[(in + 3) % 4]);
+                        builder.turnCost(a, via, left, 20);
+                    }
+                    int in = random.nextInt(4);
+                    int out = (in + 1 + random.nextInt(2)) % 4;
+                    builder.restrictTurn((x - dx[in]) + "," + (y - dy[in]), via, (x + dx[out]) + "," + (y + dy[out]));
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,350 @@
+import java.util.Arrays; // Sorting scores for percentiles
+import java.util.concurrent.atomic.LongAdder; // Tick totals shared by the worker threads
+import java.util.stream.IntStream; // Parallel self-play over the fork/join pool
+
+/**
+ * Snake Autopilot
+ * Plays SnakeEngine on its own, and runs thousands of seeded games in parallel.
+ *
+ * Each tick the autopilot tries, in order:
+ * 1. Food - breadth-first search from the head to the food over free cells. The path is only
+ *    taken if, once the snake has eaten there, its head could still reach its tail.
+ * 2. Tail - otherwise move to a neighbour from which the tail stays reachable, farthest from
+ *    the food, buying time until a safe path opens.
+ * 3. Cycle - otherwise follow a fixed Hamiltonian cycle of the board if the next cell is free.
+ *
+ * All search state (queue, parents, visit marks) is allocated once per autopilot and reused;
+ * visit marks use a generation counter so nothing is cleared between searches. A tick
+ * therefore allocates nothing and the harness measures the game and the search only.
+ *
+ * Self-play: java SnakeAutopilot [games] [width] [height]
+ */
+final class SnakeAutopilot {
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+
+    private final int width;
+    private final int height;
+    private final int cells;
+    private final int[] queue; // BFS queue of cells
+    private final int[] parent; // Cell each visited cell was reached from
+    private final int[] visited; // visited[cell] == generation means seen in the current search
+    private final int[] blocked; // blocked[cell] == generation means occupied in the simulated body
+    private final int[] path; // Head-to-food path found by the last search, food last
+    private final int[] probe = new int[1]; // Single move being checked
+    private final int[] cycleNext; // Successor of each cell on the Hamiltonian cycle, or null
+    private int generation;
+    private int planSteps; // Cells in the current food path, 0 when there is none
+    private int planNext; // Index in path of the next cell to move to
+    private int planStart; // Head cell the path was planned from
+    private int planFood; // Food cell the path leads to
+    private long lastMeal; // Tick of the last meal, to notice when the tail chase goes in circles
+    private int lastLength;
+    private long random = 1; // Xorshift state for breaking loops, reseeded from each game's seed
+
+    SnakeAutopilot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.queue = new int[cells];
+        this.parent = new int[cells];
+        this.visited = new int[cells];
+        this.blocked = new int[cells];
+        this.path = new int[cells];
+        this.cycleNext = hamiltonianCycle(width, height);
+    }
+
+    /**
+     * Chooses the direction for the next tick.
+     */
+    int nextDirection(SnakeEngine game) {
+        int head = game.headCell();
+        if (game.ticks() == 0) {
+            random = game.seed() | 1; // New game: same seed, same moves
+            planSteps = 0;
+        }
+        if (game.length() != lastLength || game.ticks() == 0) {
+            lastLength = game.length(); // Ate, or a new game started
+            lastMeal = game.ticks();
+        }
+
+        // A path checked on an earlier tick stays safe: following it ends in the same body
+        if (planNext < planSteps && game.food() == planFood && head == (planNext == 0 ? planStart : path[planNext - 1])) {
+            return directionTo(head, path[planNext++]);
+        }
+
+        // 1. Shortest path to the food, if eating there keeps the tail reachable
+        int steps = pathToFood(game);
+        if (steps > 0 && tailReachableAfter(game, path, steps, true)) {
+            planSteps = steps;
+            planNext = 1;
+            planStart = head;
+            planFood = game.food();
+            return directionTo(head, path[0]);
+        }
+        planSteps = 0;
+
+        // 2. After circling for a while without eating, sweep the board along the cycle instead
+        boolean idle = game.ticks() - lastMeal > cells / 2;
+        if (cycleNext != null && idle) {
+            int next = cycleNext[head];
+            probe[0] = next;
+            if (canEnter(game, next) && next != game.food() && tailReachableAfter(game, probe, 1, false)) {
+                return directionTo(head, next);
+            }
+        }
+
+        // 3. Chase the tail, staying as far from the food as possible
+        int best = -1;
+        int bestDistance = -1;
+        for (int d = 0; d < 4; d++) {
+            int next = neighbour(head, d);
+            if (next < 0 || !canEnter(game, next) || next == game.food()) {
+                continue;
+            }
+            probe[0] = next;
+            if (tailReachableAfter(game, probe, 1, false)) {
+                int distance = Math.abs(next % width - game.food() % width)
+                        + Math.abs(next / width - game.food() / width);
+                if (idle) {
+                    distance = nextRandom() & 1023; // Break out of a repeating loop with a random safe move
+                }
+                if (distance > bestDistance) {
+                    bestDistance = distance;
+                    best = d;
+                }
+            }
+        }
+        if (best >= 0) {
+            return best;
+        }
+
+        // 4. Hamiltonian cycle, then any free cell, then straight ahead
+        if (cycleNext != null && canEnter(game, cycleNext[head])) {
+            return directionTo(head, cycleNext[head]);
+        }
+        for (int d = 0; d < 4; d++) {
+            int next = neighbour(head, d);
+            if (next >= 0 && canEnter(game, next)) {
+                return d;
+            }
+        }
+        return game.direction();
+    }
+
+    /**
+     * Breadth-first search from the head to the food; fills path with the cells to visit.
+     * @return Number of steps, or -1 if the food cannot be reached.
+     */
+    private int pathToFood(SnakeEngine game) {
+        int head = game.headCell();
+        int food = game.food();
+        int mark = ++generation;
+        int read = 0;
+        int write = 0;
+        queue[write++] = head;
+        visited[head] = mark;
+        while (read < write) {
+            int cell = queue[read++];
+            if (cell == food) {
+                // Walk the parents back to the head, writing the path from its end
+                int steps = 0;
+                for (int c = cell; c != head; c = parent[c]) {
+                    steps++;
+                }
+                int i = steps;
+                for (int c = cell; c != head; c = parent[c]) {
+                    path[--i] = c;
+                }
+                return steps;
+            }
+            for (int d = 0; d < 4; d++) {
+                int next = neighbour(cell, d);
+                if (next >= 0 && visited[next] != mark && (!game.isOccupied(next) || next == game.tailCell())) {
+                    visited[next] = mark;
+                    parent[next] = cell;
+                    queue[write++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that after following route[0 .. moves), eating on the last cell or not,
+     * the head can still reach the tail.
+     */
+    private boolean tailReachableAfter(SnakeEngine game, int[] route, int moves, boolean eats) {
+        int newLength = game.length() + (eats ? 1 : 0);
+        int mark = ++generation;
+
+        // Simulated body: the path cells (newest first), then the old body that is left over
+        int newHead = route[moves - 1];
+        int newTail = newHead;
+        int counted = 0;
+        for (int i = moves - 1; i >= 0 && counted < newLength; i--, counted++) {
+            blocked[route[i]] = mark;
+            newTail = route[i];
+        }
+        for (int i = 0; counted < newLength; i++, counted++) {
+            int cell = game.segment(i);
+            blocked[cell] = mark;
+            newTail = cell;
+        }
+        if (newTail == newHead) {
+            return true;
+        }
+
+        // BFS from the new head; the tail cell counts as reachable even though it is occupied
+        int search = ++generation;
+        int read = 0;
+        int write = 0;
+        queue[write++] = newHead;
+        visited[newHead] = search;
+        while (read < write) {
+            int cell = queue[read++];
+            for (int d = 0; d < 4; d++) {
+                int next = neighbour(cell, d);
+                if (next < 0 || visited[next] == search) {
+                    continue;
+                }
+                if (next == newTail) {
+                    // Stepping straight onto the tail needs at least one cell between them
+                    if (cell != newHead || newLength > 2) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (blocked[next] != mark) {
+                    visited[next] = search;
+                    queue[write++] = next;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int nextRandom() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random >>> 33);
+    }
+
+    /**
+     * The head may enter a free cell, or the tail cell when the snake is not about to grow.
+     */
+    private static boolean canEnter(SnakeEngine game, int cell) {
+        return !game.isOccupied(cell) || (cell == game.tailCell() && cell != game.food() && game.length() > 2);
+    }
+
+    private int neighbour(int cell, int d) {
+        int x = cell % width + DX[d];
+        int y = cell / width + DY[d];
+        return x < 0 || x >= width || y < 0 || y >= height ? -1 : y * width + x;
+    }
+
+    private int directionTo(int from, int to) {
+        int diff = to - from;
+        if (diff == 1) {
+            return SnakeEngine.RIGHT;
+        }
+        if (diff == -1) {
+            return SnakeEngine.LEFT;
+        }
+        return diff > 0 ? SnakeEngine.DOWN : SnakeEngine.UP;
+    }
+
+    /**
+     * Builds a Hamiltonian cycle: zig-zag along the rows over columns 1..w-1, then back up column 0.
+     * Needs an even number of rows (or of columns, using the transposed zig-zag).
+     * @return Successor of every cell, or null when both sides are odd and no cycle exists.
+     */
+    static int[] hamiltonianCycle(int width, int height) {
+        boolean rows = height % 2 == 0;
+        if ((!rows && width % 2 != 0) || width < 2 || height < 2) {
+            return null;
+        }
+        // Work in (major, minor) coordinates so one loop handles both orientations
+        int majors = rows ? height : width;
+        int minors = rows ? width : height;
+        int[] order = new int[width * height];
+        int n = 0;
+        for (int major = 0; major < majors; major++) {
+            for (int k = 1; k < minors; k++) {
+                int minor = major % 2 == 0 ? k : minors - k;
+                order[n++] = rows ? major * width + minor : minor * width + major;
+            }
+        }
+        for (int major = majors - 1; major >= 0; major--) {
+            order[n++] = rows ? major * width : major; // Minor coordinate 0 on the way back
+        }
+        int[] next = new int[width * height];
+        for (int i = 0; i < n; i++) {
+            next[order[i]] = order[(i + 1) % n];
+        }
+        return next;
+    }
+
+    /**
+     * Plays one game to the end.
+     * @param maxIdle Give up after this many ticks without eating (the tail chase can loop).
+     */
+    static void play(SnakeEngine game, SnakeAutopilot pilot, long seed, int maxIdle) {
+        game.reset(seed);
+        long lastMeal = 0;
+        while (game.isAlive() && game.ticks() - lastMeal < maxIdle) {
+            if (game.step(pilot.nextDirection(game)) == SnakeEngine.ATE) {
+                lastMeal = game.ticks();
+            }
+        }
+    }
+
+    /**
+     * Self-play harness: seeded games in parallel on the fork/join pool, one engine and
+     * autopilot per worker thread, then the score distribution and throughput.
+     */
+    public static void main(String[] args) {
+        int games = args.length >= 1 ? Integer.parseInt(args[0]) : 1_000;
+        int width = args.length >= 2 ? Integer.parseInt(args[1]) : 24;
+        int height = args.length >= 3 ? Integer.parseInt(args[2]) : 24;
+        if (games < 1) {
+            System.err.println("Usage: java SnakeAutopilot [games] [width] [height] (games must be at least 1)");
+            return;
+        }
+        int maxIdle = 4 * width * height;
+        int cells = width * height;
+
+        ThreadLocal<SnakeEngine> engines = ThreadLocal.withInitial(() -> new SnakeEngine(width, height, 0));
+        ThreadLocal<SnakeAutopilot> pilots = ThreadLocal.withInitial(() -> new SnakeAutopilot(width, height));
+        for (int round = 1; round <= 3; round++) {
+            int[] scores = new int[games];
+            LongAdder ticks = new LongAdder();
+            LongAdder wins = new LongAdder();
+            LongAdder stalled = new LongAdder();
+            long start = System.nanoTime();
+            IntStream.range(0, games).parallel().forEach(i -> {
+                SnakeEngine game = engines.get();
+                play(game, pilots.get(), i, maxIdle);
+                scores[i] = game.score();
+                ticks.add(game.ticks());
+                if (game.length() == cells) {
+                    wins.increment();
+                } else if (game.isAlive()) {
+                    stalled.increment();
+                }
+            });
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(scores);
+            long total = ticks.sum();
+            System.out.printf("Round %d: %,d games on %dx%d, %,d ticks in %.1f ms = %,.0f ticks/s%n",
+                    round, games, width, height, total, elapsed / 1e6, total * 1e9 / elapsed);
+            System.out.printf("  score  min %d  p10 %d  p50 %d  p90 %d  max %d  (perfect %d)%n",
+                    scores[0], scores[games / 10], scores[games / 2], scores[games * 9 / 10],
+                    scores[games - 1], (cells - SnakeEngine.INITIAL_LENGTH) * SnakeEngine.POINTS_PER_FOOD);
+            System.out.printf("  won %,d  stalled %,d  died %,d%n",
+                    wins.sum(), stalled.sum(), games - wins.sum() - stalled.sum());
+        }
+    }
+}
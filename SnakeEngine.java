@@ -0,0 +1,282 @@
+import java.util.Arrays; // Clearing the occupancy grid on reset
+
+/**
+ * Snake Engine - headless, allocation-free Snake simulation.
+ * SnakeGame draws it; it can also be stepped millions of times per second without a GUI.
+ *
+ * 1. Board - width x height tiles, each identified by cell = y * width + x.
+ * 2. Body - ring buffer of cells, so moving is O(1) instead of shifting every segment.
+ * 3. Occupancy - one bit per cell in a long[] bitset, so collision checks are O(1).
+ * 4. Food - sampled uniformly from the free cells, never on the snake.
+ * 5. Randomness - a seeded SplitMix64 generator, so a game is fully determined by
+ *    its seed and its list of moves and can be replayed exactly.
+ *
+ * Benchmark: java SnakeEngine --bench [ticks]
+ */
+final class SnakeEngine {
+    // Directions, clockwise; the opposite of d is (d + 2) & 3
+    static final int UP = 0;
+    static final int RIGHT = 1;
+    static final int DOWN = 2;
+    static final int LEFT = 3;
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+
+    // Results of step()
+    static final int MOVED = 0;
+    static final int ATE = 1;
+    static final int DIED = 2;
+    static final int WON = 3; // The snake fills the whole board
+
+    static final int INITIAL_LENGTH = 3;
+    static final int POINTS_PER_FOOD = 10;
+
+    final int width;
+    final int height;
+    private final int cells;
+    private final int[] body; // Ring buffer of cells; body[head] is the head
+    private final long[] occupied; // Bit set per cell covered by the snake
+    private int head; // Index of the head in body
+    private int length;
+    private int direction;
+    private int food;
+    private int score;
+    private long ticks;
+    private boolean alive;
+    private long seed;
+    private long rngState;
+
+    SnakeEngine(int width, int height, long seed) {
+        if (width < INITIAL_LENGTH + 1 || height < 1) {
+            throw new IllegalArgumentException("Board too small: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.body = new int[cells];
+        this.occupied = new long[(cells + 63) >>> 6];
+        reset(seed);
+    }
+
+    /**
+     * Starts a new game: a snake of INITIAL_LENGTH on the middle row heading right.
+     */
+    void reset(long seed) {
+        this.seed = seed;
+        rngState = seed;
+        Arrays.fill(occupied, 0L);
+        int row = height / 2;
+        length = INITIAL_LENGTH;
+        for (int i = 0; i < INITIAL_LENGTH; i++) {
+            int cell = row * width + i; // Tail at x = 0, head at x = INITIAL_LENGTH - 1
+            body[i] = cell;
+            occupy(cell);
+        }
+        head = INITIAL_LENGTH - 1;
+        direction = RIGHT;
+        score = 0;
+        ticks = 0;
+        alive = true;
+        placeFood();
+    }
+
+    /**
+     * Advances the game by one tick.
+     * @param requested Direction to turn to; reversing onto the body is ignored.
+     * @return MOVED, ATE, DIED or WON.
+     */
+    int step(int requested) {
+        if (!alive) {
+            return DIED;
+        }
+        if (requested != ((direction + 2) & 3)) {
+            direction = requested;
+        }
+        ticks++;
+
+        int current = body[head];
+        int x = current % width + DX[direction];
+        int y = current / width + DY[direction];
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            alive = false; // Hit a wall
+            return DIED;
+        }
+        int next = y * width + x;
+        boolean eating = next == food;
+        int tail = tailCell();
+        // The tail moves away this tick unless the snake eats, so the head may enter its cell
+        if (isOccupied(next) && (eating || next != tail)) {
+            alive = false; // Hit itself; the body is left as it was
+            return DIED;
+        }
+        if (!eating) {
+            release(tail);
+            length--;
+        }
+        head = head + 1 == cells ? 0 : head + 1;
+        body[head] = next;
+        occupy(next);
+        length++;
+        if (!eating) {
+            return MOVED;
+        }
+        score += POINTS_PER_FOOD;
+        if (length == cells) {
+            alive = false;
+            food = -1;
+            return WON;
+        }
+        placeFood();
+        return ATE;
+    }
+
+    boolean isOccupied(int cell) {
+        return (occupied[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Returns the cell of the i-th segment, counting from the head (i = 0).
+     */
+    int segment(int i) {
+        int index = head - i;
+        return body[index < 0 ? index + cells : index];
+    }
+
+    int headCell() {
+        return body[head];
+    }
+
+    int tailCell() {
+        return segment(length - 1);
+    }
+
+    int length() {
+        return length;
+    }
+
+    int direction() {
+        return direction;
+    }
+
+    int food() {
+        return food;
+    }
+
+    int score() {
+        return score;
+    }
+
+    long ticks() {
+        return ticks;
+    }
+
+    boolean isAlive() {
+        return alive;
+    }
+
+    long seed() {
+        return seed;
+    }
+
+    int cells() {
+        return cells;
+    }
+
+    /**
+     * Plays a recorded game again from its seed and moves.
+     * @return The engine after the last move.
+     */
+    static SnakeEngine replay(int width, int height, long seed, byte[] moves) {
+        SnakeEngine engine = new SnakeEngine(width, height, seed);
+        for (byte move : moves) {
+            if (engine.step(move) == DIED) {
+                break;
+            }
+        }
+        return engine;
+    }
+
+    private void occupy(int cell) {
+        occupied[cell >>> 6] |= 1L << cell;
+    }
+
+    private void release(int cell) {
+        occupied[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /**
+     * Places food on a uniformly random free cell. A few random probes succeed
+     * quickly while the board is mostly empty; otherwise pick the k-th free cell
+     * by counting zero bits a word at a time.
+     */
+    private void placeFood() {
+        int free = cells - length;
+        for (int attempt = 0; attempt < 4; attempt++) {
+            int cell = nextInt(cells);
+            if (!isOccupied(cell)) {
+                food = cell;
+                return;
+            }
+        }
+        int k = nextInt(free); // Index of the chosen free cell among all free cells
+        for (int word = 0; word < occupied.length; word++) {
+            long freeBits = ~occupied[word];
+            if (word == occupied.length - 1 && (cells & 63) != 0) {
+                freeBits &= (1L << cells) - 1; // Ignore bits past the last cell
+            }
+            int count = Long.bitCount(freeBits);
+            if (k < count) {
+                for (int i = 0; i < k; i++) {
+                    freeBits &= freeBits - 1; // Drop the lowest free bit
+                }
+                food = (word << 6) + Long.numberOfTrailingZeros(freeBits);
+                return;
+            }
+            k -= count;
+        }
+        throw new IllegalStateException("No free cell for food");
+    }
+
+    /**
+     * SplitMix64 step, reduced to [0, bound).
+     */
+    int nextInt(int bound) {
+        rngState += 0x9E3779B97F4A7C15L;
+        long z = rngState;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (((z >>> 32) * bound) >>> 32); // Multiply-shift instead of a modulo
+    }
+
+    /**
+     * Benchmark: random play on the 24x24 board, restarting after each death.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].equals("--bench")) {
+            System.err.println("Usage: java SnakeEngine --bench [ticks]");
+            return;
+        }
+        long total = args.length >= 2 ? Long.parseLong(args[1]) : 100_000_000L;
+        SnakeEngine engine = new SnakeEngine(24, 24, 1L);
+        for (int round = 1; round <= 5; round++) {
+            long games = 0;
+            long food = 0;
+            long start = System.nanoTime();
+            for (long t = 0; t < total; t++) {
+                // Turn left, right or keep going at random
+                int turn = engine.nextInt(3) - 1;
+                int result = engine.step((engine.direction() + turn) & 3);
+                if (result == ATE) {
+                    food++;
+                } else if (result == DIED || result == WON) {
+                    games++;
+                    engine.reset(engine.seed() + 1);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Round %d: %,d ticks in %.1f ms = %,.0f ticks/s (%,d games, %,d food)%n",
+                    round, total, elapsed / 1e6, total * 1e9 / elapsed, games, food);
+        }
+    }
+}
@@ -3,39 +3,71 @@ import java.awt.event.ActionEvent; // Import AWT for graphics such as font,graph
 import java.awt.event.ActionListener; // Import event handling for Timer and also handle keyboard functions
 import java.awt.event.KeyAdapter; // Timer event handling
 import java.awt.event.KeyEvent; // Handles keyboard input
-import java.util.Random; // Key event for movement
-import javax.swing.*; // Random food placement
+import java.awt.image.BufferedImage; // Off-screen copy of the board
+import javax.swing.*; // Swing components and Timer
 
 // SnakeGame class extends JPanel and implements ActionListener for game updates
+// Run with: java SnakeGame [tiles per side] [tick ms], e.g. java SnakeGame 200 10
 public class SnakeGame extends JPanel implements ActionListener {
-    
+
     // Constants for game settings
-    private final int TILE_SIZE = 25;  // Size of each square on the grid
-    private final int BOARD_WIDTH = 600;  // Game board width
-    private final int BOARD_HEIGHT = 600; // Game board height
-    private final int TOTAL_TILES = (BOARD_WIDTH * BOARD_HEIGHT) / (TILE_SIZE * TILE_SIZE); // Maximum tiles on board
+    private static final int BOARD_SIZE = 600;  // Game board width and height in pixels
+    private static final int MAX_CATCH_UP = 5; // Most ticks run in one frame before dropping time
 
-    // Arrays to store snake's X and Y positions
-    private final int x[] = new int[TOTAL_TILES];
-    private final int y[] = new int[TOTAL_TILES];
+    // Fonts are created once rather than on every frame
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Font STATS_FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 40);
+    private static final Font FINAL_SCORE_FONT = new Font("Arial", Font.BOLD, 25);
+    private static final int TEXT_X = 10; // Left edge of the score and stats text
+    private static final int OVERLAY_HEIGHT = 48; // Score and stats corner, below the stats descent
 
-    // Initial snake length
-    private int snakeLength = 3;  
+    private final int tileSize;  // Size of each square on the grid
+    private final int boardWidth;  // Game board width
+    private final int boardHeight; // Game board height
+    private final long tickNanos; // Fixed simulation step
 
-    // Variables to track food position
-    private int foodX, foodY;
+    // Headless simulation holding the snake, food and score; this panel only draws it
+    private final SnakeEngine engine;
 
-    // Score variable
-    private int score = 0;
-    
     // Game state variables
     private boolean running = false; // Tracks if the game is running
-    private char direction = 'R'; // Initial direction (R = Right, L = Left, U = Up, D = Down)
-    private Timer timer; // Timer to update game state at fixed intervals
+    private int direction = SnakeEngine.RIGHT; // Direction applied on the next tick
+    private boolean autopilot = false; // Press A to let SnakeAutopilot steer
+    private SnakeAutopilot pilot; // Created the first time the autopilot is switched on
+    private Timer timer; // Drives the game loop; ticks run at a fixed rate inside it
+
+    // Board drawn off-screen; each tick only redraws the cells that changed
+    private BufferedImage board;
+    private final Rectangle dirty = new Rectangle(); // Cells changed since the last frame, as one region
+
+    // Game loop timing
+    private long lastLoopNanos;
+    private long accumulatedNanos; // Time owed to the simulation, consumed in tickNanos steps
+
+    // Overlay statistics, refreshed about once a second
+    private long statsStartNanos;
+    private int frames; // Frames painted since statsStartNanos
+    private int ticks; // Simulation ticks since statsStartNanos
+    private long tickTimeNanos; // Time spent stepping and updating the board image
+    private long maxTickNanos;
+    private String stats = "";
+    private int shownScore; // Score currently on screen
+    private int overlayRight; // Right edge of the score and stats text currently on screen
 
     // Constructor - Initializes game panel and starts the game
     public SnakeGame() {
-        setPreferredSize(new Dimension(BOARD_WIDTH, BOARD_HEIGHT)); // Set game panel size
+        this(24, 100); // The classic 24x24 board, one move every 100ms
+    }
+
+    public SnakeGame(int tiles, int tickMillis) {
+        tileSize = Math.max(1, BOARD_SIZE / tiles);
+        boardWidth = tiles * tileSize;
+        boardHeight = tiles * tileSize;
+        tickNanos = Math.max(1, tickMillis) * 1_000_000L;
+        engine = new SnakeEngine(tiles, tiles, System.nanoTime());
+
+        setPreferredSize(new Dimension(boardWidth, boardHeight)); // Set game panel size
         setBackground(Color.cyan); // Set background color
         setFocusable(true); // Allow panel to receive keyboard input
 
@@ -52,17 +84,19 @@ public class SnakeGame extends JPanel implements ActionListener {
 
     // Method to start the game
     private void startGame() {
-        running = true; // Set game running state to true
-        placeFood(); // Generate the first food
-        timer = new Timer(100, this); // Set timer to refresh game every 100ms
-        timer.start(); // Start the game timer
+        running = true; // Set game running state to true (the engine already placed the first food)
+        lastLoopNanos = System.nanoTime();
+        statsStartNanos = lastLoopNanos;
+        // Fire often and run however many fixed ticks are due, so speed does not depend on the timer
+        timer = new Timer((int) Math.max(1, Math.min(15, tickNanos / 2_000_000L)), this);
+        timer.start(); // Start the game loop
     }
 
-    // Method to place food at a random position
-    private void placeFood() {
-        Random rand = new Random();
-        foodX = rand.nextInt(BOARD_WIDTH / TILE_SIZE) * TILE_SIZE; // Random X position
-        foodY = rand.nextInt(BOARD_HEIGHT / TILE_SIZE) * TILE_SIZE; // Random Y position
+    // Stop the game loop when the window closes; a running timer would keep the JVM alive
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
     }
 
     // Override paintComponent to draw game elements
@@ -70,80 +104,105 @@ public class SnakeGame extends JPanel implements ActionListener {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         draw(g); // Call draw method
+        if (running) {
+            frames++;
+        }
     }
 
-    // Method to draw the snake, food, and score
+    // Method to draw the board and the score; only the clipped part reaches the screen
     private void draw(Graphics g) {
         if (running) {
-            // Draw food (red circle)
-            g.setColor(Color.RED);
-            g.fillOval(foodX, foodY, TILE_SIZE, TILE_SIZE);
-
-            // Draw snake
-            for (int i = 0; i < snakeLength; i++) {
-                if (i == 0) {
-                    g.setColor(Color.GREEN); // Snake head color
-                } else {
-                    g.setColor(Color.blue); // Snake body color
-                }
-                g.fillRect(x[i], y[i], TILE_SIZE, TILE_SIZE);
-            }
+            g.drawImage(boardImage(), 0, 0, null);
 
-            // Draw score
+            // Draw score and loop statistics
             g.setColor(Color.black);
-            g.setFont(new Font("Arial", Font.BOLD, 20));
-            g.drawString("Score: " + score, 10, 20);
+            g.setFont(SCORE_FONT);
+            g.drawString("Score: " + engine.score(), TEXT_X, 20);
+            g.setFont(STATS_FONT);
+            g.drawString(stats, TEXT_X, 38);
         } else {
             gameOver(g); // Display game over screen
         }
     }
 
-    // Method to move the snake
-    private void move() {
-        // Move body segments forward
-        for (int i = snakeLength; i > 0; i--) {
-            x[i] = x[i - 1]; // Shift X positions
-            y[i] = y[i - 1]; // Shift Y positions
-        }
-
-        // Move the head based on the direction
-        switch (direction) {
-            case 'U': y[0] -= TILE_SIZE; break; // Move up
-            case 'D': y[0] += TILE_SIZE; break; // Move down
-            case 'L': x[0] -= TILE_SIZE; break; // Move left
-            case 'R': x[0] += TILE_SIZE; break; // Move right
+    // Returns the off-screen board, drawing it in full the first time
+    private BufferedImage boardImage() {
+        if (board == null) {
+            GraphicsConfiguration config = getGraphicsConfiguration();
+            board = config != null
+                    ? config.createCompatibleImage(boardWidth, boardHeight)
+                    : new BufferedImage(boardWidth, boardHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = board.createGraphics();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, boardWidth, boardHeight);
+            for (int i = engine.length() - 1; i >= 0; i--) {
+                drawCell(g, engine.segment(i), i == 0 ? Color.GREEN : Color.blue);
+            }
+            drawFood(g);
+            g.dispose();
         }
+        return board;
+    }
 
-        checkCollision(); // Check for collisions
-        checkFood(); // Check if the snake ate food
+    // Method to draw one tile of the snake (or background) onto the board image
+    private void drawCell(Graphics g, int cell, Color color) {
+        g.setColor(color);
+        g.fillRect(cell % engine.width * tileSize, cell / engine.width * tileSize, tileSize, tileSize);
     }
 
-    // Method to check if the snake collides with itself or the walls
-    private void checkCollision() {
-        // Check if the snake collides with itself
-        for (int i = snakeLength; i > 0; i--) {
-            if ((x[0] == x[i]) && (y[0] == y[i])) {
-                running = false; // Stop the game
-            }
+    // Method to draw the food (red circle) onto the board image
+    private void drawFood(Graphics g) {
+        int food = engine.food();
+        if (food >= 0) {
+            g.setColor(Color.RED);
+            g.fillOval(food % engine.width * tileSize, food / engine.width * tileSize, tileSize, tileSize);
         }
+    }
 
-        // Check if the snake collides with walls
-        if (x[0] < 0 || x[0] >= BOARD_WIDTH || y[0] < 0 || y[0] >= BOARD_HEIGHT) {
+    // Method to move the snake one tile; the engine handles walls, self collision and food
+    private void move() {
+        if (autopilot) {
+            direction = pilot.nextDirection(engine);
+        }
+        int oldHead = engine.headCell();
+        int oldTail = engine.tailCell();
+        int result = engine.step(direction);
+        if (result == SnakeEngine.DIED || result == SnakeEngine.WON) {
             running = false; // Stop the game
+            timer.stop(); // Stop timer once the game ends
+            return;
         }
 
-        // Stop timer if game ends
-        if (!running) {
-            timer.stop();
+        // Update the board image: the tail cell is freed, the old head becomes body, a new head appears
+        Graphics g = boardImage().createGraphics();
+        if (result == SnakeEngine.MOVED) {
+            drawCell(g, oldTail, getBackground());
+            markDirty(oldTail);
+        }
+        drawCell(g, oldHead, Color.blue);
+        markDirty(oldHead);
+        drawCell(g, engine.headCell(), Color.GREEN);
+        markDirty(engine.headCell());
+        if (result == SnakeEngine.ATE) {
+            drawFood(g);
+            markDirty(engine.food());
         }
+        g.dispose();
+    }
+
+    // Adds one changed cell to the region repainted at the end of the frame. Far-apart cells
+    // widen the region, but painting it is still one clipped copy of the board image.
+    private void markDirty(int cell) {
+        markRegion(cell % engine.width * tileSize, cell / engine.width * tileSize, tileSize, tileSize);
     }
 
-    // Method to check if the snake eats the food
-    private void checkFood() {
-        if (x[0] == foodX && y[0] == foodY) { // If snake head touches food
-            snakeLength++; // Increase snake length
-            score += 10; // Increase score
-            placeFood(); // Generate new food position
+    // Grows the frame's region by its corners, so marking a cell allocates nothing
+    private void markRegion(int x, int y, int width, int height) {
+        if (dirty.isEmpty()) {
+            dirty.setBounds(x, y, width, height);
+        } else {
+            dirty.add(x, y);
+            dirty.add(x + width, y + height);
         }
     }
 
@@ -151,51 +210,115 @@ public class SnakeGame extends JPanel implements ActionListener {
     private void changeDirection(KeyEvent e) {
         int key = e.getKeyCode(); // Get key pressed
 
-        // Prevent snake from reversing direction
-        if ((key == KeyEvent.VK_LEFT) && (direction != 'R')) {
-            direction = 'L';
+        // Toggle the autopilot
+        if (key == KeyEvent.VK_A) {
+            if (pilot == null) {
+                pilot = new SnakeAutopilot(engine.width, engine.height);
+            }
+            autopilot = !autopilot;
         }
-        if ((key == KeyEvent.VK_RIGHT) && (direction != 'L')) {
-            direction = 'R';
+
+        // Prevent snake from reversing direction (checked against the direction it last moved in)
+        int current = engine.direction();
+        if ((key == KeyEvent.VK_LEFT) && (current != SnakeEngine.RIGHT)) {
+            direction = SnakeEngine.LEFT;
+        }
+        if ((key == KeyEvent.VK_RIGHT) && (current != SnakeEngine.LEFT)) {
+            direction = SnakeEngine.RIGHT;
         }
-        if ((key == KeyEvent.VK_UP) && (direction != 'D')) {
-            direction = 'U';
+        if ((key == KeyEvent.VK_UP) && (current != SnakeEngine.DOWN)) {
+            direction = SnakeEngine.UP;
         }
-        if ((key == KeyEvent.VK_DOWN) && (direction != 'U')) {
-            direction = 'D';
+        if ((key == KeyEvent.VK_DOWN) && (current != SnakeEngine.UP)) {
+            direction = SnakeEngine.DOWN;
         }
     }
 
     // Method to display "Game Over" screen
     private void gameOver(Graphics g) {
         g.setColor(Color.RED);
-        g.setFont(new Font("Arial", Font.BOLD, 40));
-        g.drawString("Game Over!", BOARD_WIDTH / 3, BOARD_HEIGHT / 2);
+        g.setFont(GAME_OVER_FONT);
+        g.drawString("Game Over!", boardWidth / 3, boardHeight / 2);
 
         // Display final score
         g.setColor(Color.BLACK);
-        g.setFont(new Font("Arial", Font.BOLD, 25));
-        g.drawString("Final Score: " + score, BOARD_WIDTH / 3, BOARD_HEIGHT / 2 + 50);
+        g.setFont(FINAL_SCORE_FONT);
+        g.drawString("Final Score: " + engine.score(), boardWidth / 3, boardHeight / 2 + 50);
     }
 
-    // Method executed on every timer tick (moves snake)
+    // Game loop, run by the timer: catch the simulation up in fixed steps, then show the changes
     @Override
     public void actionPerformed(ActionEvent e) {
-        if (running) {
-            move(); // Move the snake
+        long now = System.nanoTime();
+        accumulatedNanos += now - lastLoopNanos;
+        lastLoopNanos = now;
+
+        int steps = 0;
+        while (running && accumulatedNanos >= tickNanos) {
+            if (steps == MAX_CATCH_UP) {
+                accumulatedNanos = 0; // Too far behind: drop the time instead of spiralling
+                break;
+            }
+            long start = System.nanoTime();
+            move(); // Move the snake and update its cells in the board image
+            long elapsed = System.nanoTime() - start;
+            tickTimeNanos += elapsed;
+            maxTickNanos = Math.max(maxTickNanos, elapsed);
+            accumulatedNanos -= tickNanos;
+            ticks++;
+            steps++;
         }
-        repaint(); // Redraw game components
+        if (!running) {
+            repaint(); // Game over screen
+            return;
+        }
+
+        if (now - statsStartNanos >= 1_000_000_000L) {
+            double seconds = (now - statsStartNanos) / 1e9;
+            stats = String.format("%.0f fps  %.0f ticks/s  tick %.0f/%.0f us%s",
+                    frames / seconds, ticks / seconds,
+                    ticks == 0 ? 0.0 : tickTimeNanos / 1e3 / ticks, maxTickNanos / 1e3,
+                    autopilot ? "  auto" : "");
+            statsStartNanos = now;
+            frames = 0;
+            ticks = 0;
+            tickTimeNanos = 0;
+            maxTickNanos = 0;
+            markOverlay();
+        } else if (engine.score() != shownScore) {
+            markOverlay(); // New score
+        }
+        shownScore = engine.score();
+
+        // One repaint per frame, however many ticks ran; Swing paints it on this thread after we return
+        if (!dirty.isEmpty()) {
+            repaint(dirty);
+            dirty.setSize(0, 0);
+        }
+    }
+
+    // Adds the score and stats corner to this frame's region, wide enough to cover both
+    // the text on screen and the text replacing it, measured in the fonts they are drawn in
+    private void markOverlay() {
+        int right = TEXT_X + Math.max(
+                getFontMetrics(SCORE_FONT).stringWidth("Score: " + engine.score()),
+                getFontMetrics(STATS_FONT).stringWidth(stats));
+        markRegion(0, 0, Math.max(right, overlayRight) + 1, OVERLAY_HEIGHT);
+        overlayRight = right;
     }
 
     // Main method to start the game
     public static void main(String[] args) {
+        int tiles = args.length >= 1 ? Integer.parseInt(args[0]) : 24;
+        int tickMillis = args.length >= 2 ? Integer.parseInt(args[1]) : 100;
+
         JFrame frame = new JFrame("Snake Game"); // Create game window
-        SnakeGame game = new SnakeGame(); // Create game instance
-        
+        SnakeGame game = new SnakeGame(tiles, tickMillis); // Create game instance
+
         frame.add(game); // Add game panel to frame
         frame.setResizable(false); // Prevent resizing
         frame.pack(); // Adjust frame size
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // Close on exit
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // See ProjectLauncher
         frame.setVisible(true); // Show game window
     }
 }
@@ -0,0 +1,809 @@
+import java.io.IOException; // Socket errors
+import java.net.InetSocketAddress; // Listening and connecting addresses
+import java.net.StandardSocketOptions; // TCP_NODELAY for small per-tick frames
+import java.nio.ByteBuffer; // Frames on the wire
+import java.nio.channels.SelectionKey; // Readiness of each connection
+import java.nio.channels.Selector; // One thread multiplexing every connection
+import java.nio.channels.ServerSocketChannel; // Accepts players
+import java.nio.channels.SocketChannel; // One player connection
+import java.util.ArrayList; // Connected clients
+import java.util.Arrays; // Sorting changes and timing samples
+import java.util.Iterator; // Walking the selected keys
+
+/**
+ * Snake Server - authoritative multiplayer Snake on one shared board.
+ *
+ * 1. Networking - a single thread runs a non-blocking NIO selector for every connection
+ *    and also runs the game ticks, so the world needs no locks.
+ * 2. Input - clients send one byte per key press (0 up, 1 right, 2 down, 3 left). Presses
+ *    arriving between ticks are batched: only the last one per player counts, at the next tick.
+ * 3. State - a new client gets a full snapshot. After that every tick sends one delta with
+ *    only the cells that changed. Cells are sorted and sent as varint gaps plus varint values.
+ *    The delta is encoded once and the same bytes are written to every client.
+ * 4. Slow clients - bytes a socket cannot take yet wait in a per-client backlog; a client
+ *    whose backlog passes MAX_BACKLOG is disconnected instead of holding up the tick.
+ *
+ * Wire format (server to client): [int length][byte type][body], with the body made of varints.
+ *   WELCOME:  player id, width, height
+ *   SNAPSHOT: tick, count, then count x (cell gap, cell value); the client clears its board first
+ *   DELTA:    same as SNAPSHOT, holding only the changed cells
+ * Cell values: 0 empty, 1 food, 2 + player id for a snake segment.
+ *
+ * Server:    java SnakeServer [port] [tiles] [tick ms]
+ * Load test: java SnakeServer --bench [clients] [ticks] [tiles] [tick ms]
+ */
+final class SnakeServer {
+    static final byte WELCOME = 1;
+    static final byte SNAPSHOT = 2;
+    static final byte DELTA = 3;
+
+    static final int EMPTY = 0;
+    static final int FOOD = 1;
+    static final int FIRST_PLAYER = 2; // Cell value of player id 0
+
+    private static final int MAX_BACKLOG = 1 << 20; // Bytes queued for one client before it is dropped
+
+    private final World world;
+    private final long tickNanos;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final ArrayList<Client> clients = new ArrayList<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(4096);
+    private ByteBuffer frame = ByteBuffer.allocateDirect(64 * 1024); // Encoded once per tick
+
+    // Statistics
+    private long bytesSent;
+    private long clientTicks; // Sum over ticks of the clients each delta went to
+    // Per-tick samples, kept only when run() has a tick limit; a server running forever records none
+    private long[] jitterNanos = new long[0]; // How late each tick started
+    private long[] workNanos = new long[0]; // Step, encode and broadcast time of each tick
+    private int ticksRun; // Ticks recorded
+
+    /**
+     * One connected player.
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final int player;
+        ByteBuffer backlog = ByteBuffer.allocate(0); // Bytes not yet accepted by the socket, in fill mode
+
+        Client(SocketChannel channel, SelectionKey key, int player) {
+            this.channel = channel;
+            this.key = key;
+            this.player = player;
+        }
+    }
+
+    SnakeServer(InetSocketAddress address, int tiles, int tickMillis) throws IOException {
+        this.world = new World(tiles, tiles, System.nanoTime());
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    int port() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Runs the server on the calling thread.
+     * @param maxTicks   Stop after this many ticks, or 0 to run forever.
+     * @param minClients Wait for this many clients before the first tick.
+     */
+    void run(int maxTicks, int minClients) throws IOException {
+        while (clients.size() < minClients) {
+            selector.select();
+            handleIo();
+        }
+        if (maxTicks > 0) {
+            jitterNanos = new long[maxTicks]; // Sized once, so recording never grows them
+            workNanos = new long[maxTicks];
+        }
+        long start = System.nanoTime();
+        long nextTick = start;
+        while (maxTicks == 0 || ticksRun < maxTicks) {
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                selector.select(Math.max(1, wait / 1_000_000L));
+                handleIo();
+                if (System.nanoTime() < nextTick) {
+                    continue; // Woken by I/O or rounded down; the tick is not due yet
+                }
+            } else {
+                selector.selectNow();
+                handleIo();
+            }
+            long tickStart = System.nanoTime();
+            tick();
+            record(tickStart - nextTick, System.nanoTime() - tickStart);
+            nextTick += tickNanos;
+        }
+        for (Client client : clients) {
+            client.key.cancel();
+        }
+        selector.selectNow(); // Deregister the channels so they can finish in blocking mode
+        for (Client client : clients) {
+            finish(client); // Send the last frames before closing
+            client.channel.close();
+        }
+        clients.clear();
+        server.close();
+        selector.close();
+    }
+
+    /**
+     * Steps the world and sends the resulting delta to every client.
+     */
+    private void tick() {
+        world.step();
+        ensureFrameCapacity(world.maxDeltaBytes());
+        frame.clear();
+        world.writeDelta(frame);
+        frame.flip();
+        int length = frame.limit();
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            frame.limit(length).position(0);
+            send(clients.get(i), frame); // May disconnect and remove this client
+        }
+        clientTicks += clients.size();
+    }
+
+    private void handleIo() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Client client = (Client) key.attachment();
+            if (key.isReadable()) {
+                read(client);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(client);
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = server.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            int player = world.join();
+            Client client = new Client(channel, channel.register(selector, SelectionKey.OP_READ), player);
+            client.key.attach(client);
+            clients.add(client);
+
+            // Greet the player and send the whole board; deltas follow from the next tick
+            ensureFrameCapacity(world.maxSnapshotBytes() + 32);
+            frame.clear();
+            int start = frame.position();
+            frame.putInt(0).put(WELCOME);
+            putVarint(frame, player);
+            putVarint(frame, world.width);
+            putVarint(frame, world.height);
+            frame.putInt(start, frame.position() - start - 4);
+            world.writeSnapshot(frame);
+            frame.flip();
+            send(client, frame);
+        } catch (IOException e) {
+            System.err.println("Accept failed: " + e.getMessage());
+        }
+    }
+
+    private void read(Client client) {
+        try {
+            readBuffer.clear();
+            int n = client.channel.read(readBuffer);
+            if (n < 0) {
+                disconnect(client);
+                return;
+            }
+            // Keep only the last valid key press; it is applied at the next tick
+            for (int i = 0; i < n; i++) {
+                int direction = readBuffer.get(i);
+                if (direction >= 0 && direction < 4) {
+                    world.input(client.player, direction);
+                }
+            }
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    /**
+     * Writes straight to the socket when nothing is queued, and queues whatever it does not take.
+     */
+    private void send(Client client, ByteBuffer data) {
+        try {
+            if (client.backlog.position() == 0) {
+                bytesSent += client.channel.write(data);
+            }
+            if (!data.hasRemaining()) {
+                return;
+            }
+            int queued = client.backlog.position() + data.remaining();
+            if (queued > MAX_BACKLOG) {
+                disconnect(client); // Too slow to keep up
+                return;
+            }
+            if (queued > client.backlog.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(queued, client.backlog.capacity() * 2));
+                client.backlog.flip();
+                larger.put(client.backlog);
+                client.backlog = larger;
+            }
+            client.backlog.put(data);
+            client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void flush(Client client) {
+        try {
+            client.backlog.flip();
+            bytesSent += client.channel.write(client.backlog);
+            client.backlog.compact();
+            if (client.backlog.position() == 0) {
+                client.key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void finish(Client client) throws IOException {
+        client.channel.configureBlocking(true);
+        client.backlog.flip();
+        while (client.backlog.hasRemaining()) {
+            bytesSent += client.channel.write(client.backlog);
+        }
+    }
+
+    private void disconnect(Client client) {
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        if (clients.remove(client)) {
+            world.leave(client.player);
+        }
+    }
+
+    private void ensureFrameCapacity(int bytes) {
+        if (frame.capacity() < bytes) {
+            frame = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+        }
+    }
+
+    private void record(long jitter, long work) {
+        if (ticksRun < jitterNanos.length) {
+            jitterNanos[ticksRun] = jitter;
+            workNanos[ticksRun] = work;
+            ticksRun++;
+        }
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * The shared board: every player's snake, the food, and the cells changed since the last delta.
+     */
+    static final class World {
+        private static final int[] DX = {0, 1, 0, -1};
+        private static final int[] DY = {-1, 0, 1, 0};
+        static final int START_LENGTH = 3;
+        static final int RESPAWN_TICKS = 10;
+
+        final int width;
+        final int height;
+        final int cells;
+        final int[] grid; // EMPTY, FOOD or FIRST_PLAYER + id for every cell
+        private final int foodTarget; // Food kept on the board at all times
+        private int foodCount;
+        private Player[] players = new Player[16]; // By id; null when the slot is free
+        private int tick;
+        private long rngState;
+
+        // Target cells claimed by heads this tick, to detect head-on collisions
+        private final int[] claimTick;
+        private final int[] claims;
+
+        // Cells changed since the last delta; each cell appears once with its latest value
+        private long[] changes = new long[256]; // cell << 32 | value
+        private final int[] changeIndex;
+        private final int[] changeGeneration;
+        private int changeCount;
+        private int generation = 1;
+
+        /**
+         * One snake; its body is a ring buffer with power-of-two capacity that grows with it.
+         */
+        static final class Player {
+            final int id;
+            int[] body = new int[16];
+            int head; // Index of the head in body
+            int length;
+            int direction;
+            int pending; // Last key press since the previous tick
+            int growth; // Ticks left during which the tail stays put
+            int target; // Cell the head moves to this tick, -1 into a wall
+            boolean alive;
+            boolean dying;
+            int respawnAt;
+            int score;
+
+            Player(int id) {
+                this.id = id;
+            }
+
+            int segment(int i) {
+                return body[(head - i) & (body.length - 1)];
+            }
+        }
+
+        World(int width, int height, long seed) {
+            this.width = width;
+            this.height = height;
+            this.cells = width * height;
+            this.grid = new int[cells];
+            this.claimTick = new int[cells];
+            this.claims = new int[cells];
+            this.changeIndex = new int[cells];
+            this.changeGeneration = new int[cells];
+            this.foodTarget = Math.max(1, cells / 100);
+            this.rngState = seed;
+            topUpFood();
+        }
+
+        /**
+         * Adds a player, who spawns at the next tick.
+         * @return The player's id.
+         */
+        int join() {
+            int id = 0;
+            while (id < players.length && players[id] != null) {
+                id++;
+            }
+            if (id == players.length) {
+                players = Arrays.copyOf(players, id * 2);
+            }
+            Player p = new Player(id);
+            p.respawnAt = tick + 1;
+            players[id] = p;
+            return id;
+        }
+
+        void leave(int id) {
+            Player p = players[id];
+            if (p.alive) {
+                clearBody(p);
+            }
+            players[id] = null;
+        }
+
+        void input(int id, int direction) {
+            players[id].pending = direction;
+        }
+
+        /**
+         * Moves every snake one cell at the same time, then respawns players and tops up food.
+         */
+        void step() {
+            tick++;
+
+            // 1. Where does every head go? Tails move out of the way unless the snake is growing
+            for (Player p : players) {
+                if (p == null || !p.alive) {
+                    continue;
+                }
+                if (p.pending != ((p.direction + 2) & 3)) {
+                    p.direction = p.pending;
+                }
+                int current = p.segment(0);
+                int x = current % width + DX[p.direction];
+                int y = current / width + DY[p.direction];
+                p.target = x < 0 || x >= width || y < 0 || y >= height ? -1 : y * width + x;
+                if (p.target < 0) {
+                    continue;
+                }
+                if (p.growth > 0) {
+                    p.growth--;
+                } else {
+                    set(p.segment(p.length - 1), EMPTY);
+                    p.length--;
+                }
+                if (claimTick[p.target] != tick) {
+                    claimTick[p.target] = tick;
+                    claims[p.target] = 0;
+                }
+                claims[p.target]++;
+            }
+
+            // 2. Walls, bodies and head-on collisions
+            for (Player p : players) {
+                if (p != null && p.alive) {
+                    p.dying = p.target < 0 || grid[p.target] >= FIRST_PLAYER || claims[p.target] > 1;
+                }
+            }
+
+            // 3. Survivors move in and eat; the dead leave the board
+            for (Player p : players) {
+                if (p == null || !p.alive) {
+                    continue;
+                }
+                if (p.dying) {
+                    clearBody(p);
+                    p.alive = false;
+                    p.respawnAt = tick + RESPAWN_TICKS;
+                    continue;
+                }
+                if (grid[p.target] == FOOD) {
+                    p.growth++;
+                    p.score += SnakeEngine.POINTS_PER_FOOD;
+                    foodCount--;
+                }
+                push(p, p.target);
+            }
+
+            // 4. Respawn, then replace eaten food
+            for (Player p : players) {
+                if (p != null && !p.alive && tick >= p.respawnAt) {
+                    spawn(p);
+                }
+            }
+            topUpFood();
+        }
+
+        private void spawn(Player p) {
+            int cell = randomFreeCell();
+            if (cell < 0) {
+                return; // Board full; try again next tick
+            }
+            p.length = 0;
+            p.score = 0;
+            p.growth = START_LENGTH - 1;
+            p.direction = cell % width < width / 2 ? SnakeEngine.RIGHT : SnakeEngine.LEFT; // Face the open side
+            p.pending = p.direction;
+            p.alive = true;
+            push(p, cell);
+        }
+
+        private void push(Player p, int cell) {
+            if (p.length == p.body.length) {
+                // Unroll the ring into a twice-as-large array, tail first
+                int[] larger = new int[p.body.length * 2];
+                for (int i = 0; i < p.length; i++) {
+                    larger[i] = p.segment(p.length - 1 - i);
+                }
+                p.body = larger;
+                p.head = p.length - 1;
+            }
+            p.head = (p.head + 1) & (p.body.length - 1);
+            p.body[p.head] = cell;
+            p.length++;
+            set(cell, FIRST_PLAYER + p.id);
+        }
+
+        private void clearBody(Player p) {
+            for (int i = 0; i < p.length; i++) {
+                set(p.segment(i), EMPTY);
+            }
+            p.length = 0;
+        }
+
+        private void topUpFood() {
+            while (foodCount < foodTarget) {
+                int cell = randomFreeCell();
+                if (cell < 0) {
+                    return;
+                }
+                set(cell, FOOD);
+                foodCount++;
+            }
+        }
+
+        /**
+         * A few random probes, then a scan from a random start.
+         * @return A free cell, or -1 if the board is full.
+         */
+        private int randomFreeCell() {
+            for (int attempt = 0; attempt < 8; attempt++) {
+                int cell = nextInt(cells);
+                if (grid[cell] == EMPTY) {
+                    return cell;
+                }
+            }
+            int start = nextInt(cells);
+            for (int i = 0; i < cells; i++) {
+                int cell = start + i < cells ? start + i : start + i - cells;
+                if (grid[cell] == EMPTY) {
+                    return cell;
+                }
+            }
+            return -1;
+        }
+
+        private int nextInt(int bound) {
+            rngState += 0x9E3779B97F4A7C15L; // SplitMix64, as in SnakeEngine
+            long z = rngState;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            z ^= z >>> 31;
+            return (int) (((z >>> 32) * bound) >>> 32);
+        }
+
+        private void set(int cell, int value) {
+            grid[cell] = value;
+            if (changeGeneration[cell] == generation) {
+                changes[changeIndex[cell]] = ((long) cell << 32) | value; // Changed again: keep the latest
+                return;
+            }
+            if (changeCount == changes.length) {
+                changes = Arrays.copyOf(changes, changeCount * 2);
+            }
+            changeGeneration[cell] = generation;
+            changeIndex[cell] = changeCount;
+            changes[changeCount++] = ((long) cell << 32) | value;
+        }
+
+        int maxDeltaBytes() {
+            return 4 + 1 + 10 + changeCount * 10;
+        }
+
+        int maxSnapshotBytes() {
+            return 4 + 1 + 10 + cells * 10;
+        }
+
+        /**
+         * Writes the changes since the last delta, sorted by cell with gap-encoded positions, and clears them.
+         */
+        void writeDelta(ByteBuffer out) {
+            Arrays.sort(changes, 0, changeCount);
+            int start = out.position();
+            out.putInt(0).put(DELTA);
+            putVarint(out, tick);
+            putVarint(out, changeCount);
+            int previous = 0;
+            for (int i = 0; i < changeCount; i++) {
+                int cell = (int) (changes[i] >>> 32);
+                putVarint(out, cell - previous);
+                putVarint(out, (int) changes[i]);
+                previous = cell;
+            }
+            out.putInt(start, out.position() - start - 4);
+            changeCount = 0;
+            generation++;
+        }
+
+        /**
+         * Writes every non-empty cell in the same format as a delta.
+         */
+        void writeSnapshot(ByteBuffer out) {
+            int count = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (grid[cell] != EMPTY) {
+                    count++;
+                }
+            }
+            int start = out.position();
+            out.putInt(0).put(SNAPSHOT);
+            putVarint(out, tick);
+            putVarint(out, count);
+            int previous = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (grid[cell] != EMPTY) {
+                    putVarint(out, cell - previous);
+                    putVarint(out, grid[cell]);
+                    previous = cell;
+                }
+            }
+            out.putInt(start, out.position() - start - 4);
+        }
+    }
+
+    /**
+     * Simulated players for the load test: one selector thread driving every connection.
+     * Each bot answers every delta with a key press; bot 0 also rebuilds the board from
+     * the snapshot and deltas so it can be compared with the server's at the end.
+     */
+    private static final class Bots {
+        private final Selector selector = Selector.open();
+        private final ByteBuffer[] inputs;
+        private final ByteBuffer press = ByteBuffer.allocate(1);
+        private int[] board; // Bot 0's copy of the board
+        private long seed = 42;
+        long bytesReceived;
+        long frames;
+
+        Bots(int port, int count) throws IOException {
+            inputs = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.register(selector, SelectionKey.OP_READ, i);
+                inputs[i] = ByteBuffer.allocate(16 * 1024);
+            }
+        }
+
+        /**
+         * Reads until the server has closed every connection.
+         */
+        void run() throws IOException {
+            int open = inputs.length;
+            while (open > 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    int bot = (Integer) key.attachment();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    int n;
+                    try {
+                        n = channel.read(inputs[bot]);
+                    } catch (IOException e) {
+                        n = -1;
+                    }
+                    if (n < 0) {
+                        key.cancel();
+                        channel.close();
+                        open--;
+                        continue;
+                    }
+                    bytesReceived += n;
+                    parse(bot, channel);
+                }
+            }
+            selector.close();
+        }
+
+        private void parse(int bot, SocketChannel channel) throws IOException {
+            ByteBuffer in = inputs[bot];
+            in.flip();
+            while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position())) {
+                int end = in.position() + 4 + in.getInt(in.position());
+                in.getInt();
+                byte type = in.get();
+                frames++;
+                if (type == WELCOME) {
+                    getVarint(in);
+                    int width = getVarint(in);
+                    int height = getVarint(in);
+                    if (bot == 0) {
+                        board = new int[width * height];
+                    }
+                } else if (bot == 0) {
+                    apply(in, type == SNAPSHOT);
+                }
+                if (type == DELTA) {
+                    press.clear();
+                    press.put((byte) (nextRandom() & 3)).flip();
+                    channel.write(press); // One key press per tick, like an eager player
+                }
+                in.position(end);
+            }
+            in.compact();
+            if (in.position() >= 4 && in.getInt(0) + 4 > in.capacity()) {
+                // Frame larger than the buffer (a big snapshot): grow it
+                ByteBuffer larger = ByteBuffer.allocate(in.getInt(0) + 4);
+                in.flip();
+                larger.put(in);
+                inputs[bot] = larger;
+            }
+        }
+
+        private void apply(ByteBuffer in, boolean snapshot) {
+            if (snapshot) {
+                Arrays.fill(board, EMPTY);
+            }
+            getVarint(in); // Tick
+            int count = getVarint(in);
+            int cell = 0;
+            for (int i = 0; i < count; i++) {
+                cell += getVarint(in);
+                board[cell] = getVarint(in);
+            }
+        }
+
+        private int nextRandom() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return (int) (seed >>> 33);
+        }
+    }
+
+    private static double percentile(long[] sorted, int count, double p) {
+        return sorted[Math.min(count - 1, (int) (count * p))];
+    }
+
+    /**
+     * Load test: the server on one thread, every bot on another, then jitter and bandwidth.
+     */
+    private static void bench(int clients, int ticks, int tiles, int tickMillis) throws Exception {
+        SnakeServer server = new SnakeServer(new InetSocketAddress("127.0.0.1", 0), tiles, tickMillis);
+        Exception[] failure = new Exception[1];
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run(ticks, clients);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        }, "snake-server");
+        serverThread.start();
+
+        Bots bots = new Bots(server.port(), clients);
+        bots.run();
+        serverThread.join();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        int n = server.ticksRun;
+        long[] jitter = Arrays.copyOf(server.jitterNanos, n);
+        long[] work = Arrays.copyOf(server.workNanos, n);
+        Arrays.sort(jitter);
+        Arrays.sort(work);
+        System.out.printf("%d clients, %d ticks of %d ms on %dx%d%n", clients, n, tickMillis, tiles, tiles);
+        System.out.printf("  tick jitter  p50 %.3f ms  p99 %.3f ms  max %.3f ms%n",
+                percentile(jitter, n, 0.5) / 1e6, percentile(jitter, n, 0.99) / 1e6, jitter[n - 1] / 1e6);
+        System.out.printf("  tick work    p50 %.3f ms  p99 %.3f ms  max %.3f ms%n",
+                percentile(work, n, 0.5) / 1e6, percentile(work, n, 0.99) / 1e6, work[n - 1] / 1e6);
+        System.out.printf("  sent %,d bytes = %.1f bytes/tick/client (snapshots included)%n",
+                server.bytesSent, (double) server.bytesSent / server.clientTicks);
+        System.out.printf("  bots received %,d bytes in %,d frames%n", bots.bytesReceived, bots.frames);
+        System.out.println("  bot 0 board matches server: " + Arrays.equals(bots.board, server.world.grid));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && args[0].equals("--bench")) {
+            int clients = args.length >= 2 ? Integer.parseInt(args[1]) : 300;
+            int ticks = args.length >= 3 ? Integer.parseInt(args[2]) : 200;
+            int tiles = args.length >= 4 ? Integer.parseInt(args[3]) : 200;
+            int tickMillis = args.length >= 5 ? Integer.parseInt(args[4]) : 50;
+            bench(clients, ticks, tiles, tickMillis);
+            return;
+        }
+        int port = args.length >= 1 ? Integer.parseInt(args[0]) : 7777;
+        int tiles = args.length >= 2 ? Integer.parseInt(args[1]) : 100;
+        int tickMillis = args.length >= 3 ? Integer.parseInt(args[2]) : 100;
+        SnakeServer server = new SnakeServer(new InetSocketAddress(port), tiles, tickMillis);
+        System.out.println("Snake server on port " + server.port() + ", " + tiles + "x" + tiles);
+        server.run(0, 0);
+    }
+}
@@ -0,0 +1,246 @@
+import java.util.ArrayList; // Registry of all counters and histograms
+import java.util.List; // List of registered metrics
+import java.util.concurrent.atomic.AtomicLongArray; // Lock-free histogram buckets
+import java.util.concurrent.atomic.LongAccumulator; // Striped running maximum
+import java.util.concurrent.atomic.LongAdder; // Striped counters for hot loops
+import jdk.jfr.Category; // JFR event metadata
+import jdk.jfr.Event; // Base class for custom JFR events
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Solver Metrics
+ * A small, low-overhead instrumentation layer shared by the solvers in this repository:
+ * 1. Counters - striped LongAdder counters for search nodes, backtracks, relaxations and heap operations.
+ * 2. Histograms - log-linear (HdrHistogram-style) bucketed histograms for latencies and depths.
+ * 3. JFR events - one custom Flight Recorder event per solve, query, encode or decode.
+ *
+ * Metrics are off by default. Start the JVM with -Ddsa.metrics=true to enable them.
+ * ENABLED is a static final constant, so when it is false the JIT removes every
+ * "if (SolverMetrics.ENABLED)" block from the hot loops entirely.
+ * When enabled, a report is printed to stderr on exit; report() can also be called at any time.
+ * JFR events are always emitted (they cost nothing unless a recording is running), e.g.
+ *   java -XX:StartFlightRecording=filename=solvers.jfr ProjectLauncher
+ */
+final class SolverMetrics {
+
+    // Master switch, read once at class initialization
+    static final boolean ENABLED = Boolean.getBoolean("dsa.metrics");
+
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+    private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    // Sudoku backtracking search
+    static final Counter SUDOKU_NODES = counter("sudoku.nodes");
+    static final Counter SUDOKU_BACKTRACKS = counter("sudoku.backtracks");
+    static final Histogram SUDOKU_BACKTRACK_DEPTH = histogram("sudoku.backtrack.depth", "cells");
+    static final Histogram SUDOKU_SOLVE_TIME = histogram("sudoku.solve.time", "ns");
+
+    // Dijkstra shortest path search
+    static final Counter DIJKSTRA_HEAP_POLLS = counter("dijkstra.heap.polls");
+    static final Counter DIJKSTRA_HEAP_PUSHES = counter("dijkstra.heap.pushes");
+    static final Counter DIJKSTRA_STALE_ENTRIES = counter("dijkstra.heap.stale");
+    static final Counter DIJKSTRA_RELAXATIONS = counter("dijkstra.relaxations");
+    static final Histogram DIJKSTRA_QUERY_TIME = histogram("dijkstra.query.time", "ns");
+
+    // Huffman encoder and decoder
+    static final Counter HUFFMAN_HEAP_OPS = counter("huffman.heap.ops");
+    static final Counter HUFFMAN_SYMBOLS_ENCODED = counter("huffman.symbols.encoded");
+    static final Counter HUFFMAN_SYMBOLS_DECODED = counter("huffman.symbols.decoded");
+    static final Histogram HUFFMAN_BUILD_TIME = histogram("huffman.build.time", "ns");
+    static final Histogram HUFFMAN_ENCODE_TIME = histogram("huffman.encode.time", "ns");
+    static final Histogram HUFFMAN_DECODE_TIME = histogram("huffman.decode.time", "ns");
+
+    static {
+        if (ENABLED) {
+            // Dump everything on exit so regressions show up without attaching a profiler
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report()), "solver-metrics-report"));
+        }
+    }
+
+    private SolverMetrics() {
+    }
+
+    private static synchronized Counter counter(String name) {
+        Counter counter = new Counter(name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    private static synchronized Histogram histogram(String name, String unit) {
+        Histogram histogram = new Histogram(name, unit);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Builds a plain-text report of every counter and histogram.
+     * @return One line per metric.
+     */
+    static synchronized String report() {
+        StringBuilder report = new StringBuilder("--- solver metrics ---\n");
+        for (Counter counter : COUNTERS) {
+            report.append(String.format("%-28s %,d%n", counter.name, counter.sum()));
+        }
+        for (Histogram histogram : HISTOGRAMS) {
+            report.append(String.format("%-28s count=%,d p50=%,d p99=%,d max=%,d %s%n",
+                    histogram.name, histogram.count(), histogram.percentile(50),
+                    histogram.percentile(99), histogram.max(), histogram.unit));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Monotonic counter backed by a LongAdder, which stripes updates across
+     * cells so concurrent solvers do not contend on a single cache line.
+     */
+    static final class Counter {
+        final String name;
+        private final LongAdder adder = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        void increment() {
+            adder.increment();
+        }
+
+        void add(long delta) {
+            adder.add(delta);
+        }
+
+        long sum() {
+            return adder.sum();
+        }
+    }
+
+    /**
+     * Log-linear histogram in the style of HdrHistogram.
+     * Values below SUB_BUCKETS are recorded exactly; larger values land in one of
+     * SUB_BUCKETS linear sub-buckets per power of two, giving about 3% relative error
+     * over the full positive long range in a fixed-size array.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 6;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        final String name;
+        final String unit;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        Histogram(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            buckets.incrementAndGet(indexOf(value));
+            count.increment();
+            max.accumulate(value);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given percentile.
+         * @param percentile Percentile in the range 0-100.
+         * @return Approximate value at that percentile, or 0 if nothing was recorded.
+         */
+        long percentile(double percentile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return Math.min(upperBoundOf(i), max());
+                }
+            }
+            return max();
+        }
+
+        private static int indexOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value; // Exact buckets for small values
+            }
+            int magnitude = 63 - Long.numberOfLeadingZeros(value); // Highest set bit, >= SUB_BUCKET_BITS
+            int shift = magnitude - SUB_BUCKET_BITS + 1;
+            int subBucket = (int) (value >>> shift) - SUB_BUCKETS / 2; // 0 .. SUB_BUCKETS/2 - 1
+            return SUB_BUCKETS + (shift - 1) * (SUB_BUCKETS / 2) + subBucket;
+        }
+
+        private static long upperBoundOf(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = (index - SUB_BUCKETS) / (SUB_BUCKETS / 2) + 1;
+            long subBucket = (index - SUB_BUCKETS) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+            if (64 - Long.numberOfLeadingZeros(subBucket + 1) + shift > 63) {
+                return Long.MAX_VALUE; // (subBucket + 1) << shift would not fit in a long
+            }
+            return ((subBucket + 1) << shift) - 1;
+        }
+    }
+
+    /**
+     * JFR event emitted once per Sudoku search.
+     */
+    @Name("dsa.SudokuSolve")
+    @Label("Sudoku Solve")
+    @Category({"DSA Projects", "Solvers"})
+    static final class SudokuSolveEvent extends Event {
+        @Label("Nodes Explored")
+        long nodes;
+        @Label("Backtracks")
+        long backtracks;
+        @Label("Solved")
+        boolean solved;
+    }
+
+    /**
+     * JFR event emitted once per Dijkstra query.
+     */
+    @Name("dsa.DijkstraQuery")
+    @Label("Dijkstra Query")
+    @Category({"DSA Projects", "Solvers"})
+    static final class DijkstraQueryEvent extends Event {
+        @Label("Start")
+        String start;
+        @Label("End")
+        String end;
+        @Label("Nodes Settled")
+        int settled;
+        @Label("Edge Relaxations")
+        long relaxations;
+    }
+
+    /**
+     * JFR event emitted once per Huffman tree build, encode or decode.
+     */
+    @Name("dsa.Huffman")
+    @Label("Huffman Operation")
+    @Category({"DSA Projects", "Compression"})
+    static final class HuffmanEvent extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Symbols")
+        long symbols;
+        @Label("Distinct Symbols")
+        int distinctSymbols;
+    }
+}
@@ -1,26 +1,42 @@
 import java.awt.*; // Importing Swing for GUI components
 import java.awt.event.ActionEvent; // Importing AWT for layout management
+import java.util.List; // Chunks delivered to SwingWorker.process
 import javax.swing.*; // Importing event handling
 
 public class SudokuSolverGUI {
-    
-    // 9x9 grid to store Sudoku values
-    private static int[][] sudokuGrid = new int[9][9];
+
+    // Give up on a search after this long so adversarial inputs cannot hang the window
+    private static final long SOLVE_TIMEOUT_MS = 10_000;
+    // Minimum gap between two board snapshots pushed to the text fields while visualizing
+    private static final long FRAME_INTERVAL_NANOS = 40_000_000L;
+
     // Text fields for user input in the grid
     private static JTextField[][] textFields = new JTextField[9][9];
-    
+
+    /**
+     * Callback invoked once per search node. Returning false aborts the search,
+     * in which case solveSudoku unwinds and reports no solution.
+     */
+    interface SearchListener {
+        boolean onNode(int[][] board);
+
+        // Called when every candidate for the cell at the given search depth failed
+        default void onBacktrack(int depth) {
+        }
+    }
+
     public static void main(String[] args) {
         // Launch GUI in event dispatch thread
         SwingUtilities.invokeLater(SudokuSolverGUI::createGUI);
     }
-    
+
     private static void createGUI() {
         // Create main application window
         JFrame frame = new JFrame("Sudoku Solver");
         frame.setSize(500, 600);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // See ProjectLauncher
         frame.setLayout(new BorderLayout());
-        
+
         // Create a panel to hold the Sudoku grid
         JPanel gridPanel = new JPanel(new GridLayout(9, 9));
         for (int row = 0; row < 9; row++) {
@@ -31,48 +47,133 @@ public class SudokuSolverGUI {
                 gridPanel.add(textFields[row][col]); // Add text field to the grid panel
             }
         }
-        
-        // Create a button to solve the Sudoku
+
+        // Controls: solve, cancel, step visualization toggle and search statistics
         JButton solveButton = new JButton("Solve Sudoku");
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        JCheckBox visualizeBox = new JCheckBox("Visualize steps");
+        JLabel statusLabel = new JLabel(" ", SwingConstants.CENTER);
+
+        final SolveWorker[] running = {null}; // Currently running search, if any
+
         solveButton.addActionListener((ActionEvent e) -> {
-            readInputGrid(); // Read user input from the grid
-            if (solveSudoku(sudokuGrid)) {
-                updateGridWithSolution(); // Update the grid with the solution
-            } else {
-                JOptionPane.showMessageDialog(frame, "No solution exists.");
+            int[][] board = readInputGrid(); // Read user input into a fresh grid
+            if (!hasValidGivens(board)) {
+                JOptionPane.showMessageDialog(frame, "The given numbers conflict with each other.");
+                return;
+            }
+            SolveWorker worker = new SolveWorker(board, visualizeBox.isSelected(), statusLabel) {
+                @Override
+                protected void done() {
+                    super.done();
+                    running[0] = null;
+                    solveButton.setEnabled(true);
+                    cancelButton.setEnabled(false);
+                    setGridEditable(true);
+                    if (isCancelled()) {
+                        showGrid(getInput()); // Restore the user's input
+                    } else if (isTimedOut()) {
+                        showGrid(getInput());
+                        JOptionPane.showMessageDialog(frame, "Search timed out after " + SOLVE_TIMEOUT_MS / 1000 + " seconds.");
+                    } else if (isSolved()) {
+                        showGrid(getBoard()); // Update the grid with the solution
+                    } else {
+                        showGrid(getInput());
+                        JOptionPane.showMessageDialog(frame, "No solution exists.");
+                    }
+                }
+            };
+            running[0] = worker;
+            solveButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            setGridEditable(false);
+            worker.execute();
+        });
+
+        cancelButton.addActionListener(e -> {
+            if (running[0] != null) {
+                running[0].cancel(false); // The search polls isCancelled() on every node
             }
         });
-        
+
+        JPanel controlPanel = new JPanel(new BorderLayout());
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(solveButton);
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(visualizeBox);
+        controlPanel.add(buttonPanel, BorderLayout.CENTER);
+        controlPanel.add(statusLabel, BorderLayout.SOUTH);
+
         // Add components to the main frame
         frame.add(gridPanel, BorderLayout.CENTER);
-        frame.add(solveButton, BorderLayout.SOUTH);
+        frame.add(controlPanel, BorderLayout.SOUTH);
         frame.setVisible(true);
     }
-    
-    private static void readInputGrid() {
-        // Read user input from text fields and store in sudokuGrid
+
+    private static int[][] readInputGrid() {
+        // Read user input from text fields into a new grid
+        int[][] board = new int[9][9];
         for (int row = 0; row < 9; row++) {
             for (int col = 0; col < 9; col++) {
                 String text = textFields[row][col].getText().trim();
                 if (!text.isEmpty() && text.matches("[1-9]")) {
-                    sudokuGrid[row][col] = Integer.parseInt(text);
+                    board[row][col] = Integer.parseInt(text);
                 } else {
-                    sudokuGrid[row][col] = 0; // Empty cells are set to 0
+                    board[row][col] = 0; // Empty cells are set to 0
                 }
             }
         }
+        return board;
     }
-    
-    private static void updateGridWithSolution() {
-        // Update the text fields with the solved Sudoku grid
+
+    private static void showGrid(int[][] board) {
+        // Update the text fields with the given grid, leaving empty cells blank
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                int value = board[row][col];
+                textFields[row][col].setText(value == 0 ? "" : String.valueOf(value));
+            }
+        }
+    }
+
+    private static void setGridEditable(boolean editable) {
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                textFields[row][col].setEditable(editable);
+            }
+        }
+    }
+
+    static boolean hasValidGivens(int[][] board) {
+        // Conflicting givens can never be solved, so reject them before searching
         for (int row = 0; row < 9; row++) {
             for (int col = 0; col < 9; col++) {
-                textFields[row][col].setText(String.valueOf(sudokuGrid[row][col]));
+                int num = board[row][col];
+                if (num != 0) {
+                    board[row][col] = 0;
+                    boolean valid = isValid(board, row, col, num);
+                    board[row][col] = num;
+                    if (!valid) {
+                        return false;
+                    }
+                }
             }
         }
+        return true;
     }
-    
-    private static boolean solveSudoku(int[][] board) {
+
+    static boolean solveSudoku(int[][] board, SearchListener listener) {
+        return solveSudoku(board, listener, 0);
+    }
+
+    private static boolean solveSudoku(int[][] board, SearchListener listener, int depth) {
+        if (SolverMetrics.ENABLED) {
+            SolverMetrics.SUDOKU_NODES.increment();
+        }
+        if (!listener.onNode(board)) {
+            return false; // Search aborted by the listener
+        }
         // Backtracking algorithm to solve Sudoku
         for (int row = 0; row < 9; row++) {
             for (int col = 0; col < 9; col++) {
@@ -80,19 +181,24 @@ public class SudokuSolverGUI {
                     for (int num = 1; num <= 9; num++) { // Try numbers 1 to 9
                         if (isValid(board, row, col, num)) { // Check if valid
                             board[row][col] = num;
-                            if (solveSudoku(board)) {
+                            if (solveSudoku(board, listener, depth + 1)) {
                                 return true; // If solved, return true
                             }
                             board[row][col] = 0; // Backtrack if not valid
                         }
                     }
+                    if (SolverMetrics.ENABLED) {
+                        SolverMetrics.SUDOKU_BACKTRACKS.increment();
+                        SolverMetrics.SUDOKU_BACKTRACK_DEPTH.record(depth);
+                    }
+                    listener.onBacktrack(depth);
                     return false; // No valid number found, backtrack
                 }
             }
         }
         return true; // Puzzle solved
     }
-    
+
     private static boolean isValid(int[][] board, int row, int col, int num) {
         // Check row and column for duplicate numbers
         for (int i = 0; i < 9; i++) {
@@ -112,6 +218,129 @@ public class SudokuSolverGUI {
         }
         return true; // Valid placement
     }
+
+    private static int[][] copyOf(int[][] board) {
+        int[][] copy = new int[9][];
+        for (int row = 0; row < 9; row++) {
+            copy[row] = board[row].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Runs the backtracking search off the event dispatch thread.
+     * Counts visited nodes, enforces SOLVE_TIMEOUT_MS and, when visualizing,
+     * publishes at most one board snapshot per FRAME_INTERVAL_NANOS. SwingWorker
+     * coalesces pending snapshots, so only the latest one is drawn.
+     */
+    static class SolveWorker extends SwingWorker<Boolean, int[][]> implements SearchListener {
+        private final int[][] input; // Untouched copy of the user's input
+        private final int[][] board; // Working grid mutated by the search
+        private final boolean visualize;
+        private final JLabel statusLabel;
+        private final long startNanos;
+        private long deadlineNanos;
+        private long lastFrameNanos;
+        private volatile long nodes; // Written by the worker, read by the EDT for display
+        private long backtracks;
+        private volatile boolean timedOut;
+        private volatile boolean solved;
+
+        SolveWorker(int[][] board, boolean visualize, JLabel statusLabel) {
+            this.input = copyOf(board);
+            this.board = board;
+            this.visualize = visualize;
+            this.statusLabel = statusLabel;
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        protected Boolean doInBackground() {
+            long solveStartNanos = System.nanoTime();
+            deadlineNanos = solveStartNanos + SOLVE_TIMEOUT_MS * 1_000_000L;
+            lastFrameNanos = solveStartNanos;
+            SolverMetrics.SudokuSolveEvent event = new SolverMetrics.SudokuSolveEvent();
+            event.begin();
+            solved = solveSudoku(board, this);
+            if (SolverMetrics.ENABLED) {
+                SolverMetrics.SUDOKU_SOLVE_TIME.record(System.nanoTime() - solveStartNanos);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.nodes = nodes;
+                event.backtracks = backtracks;
+                event.solved = solved;
+                event.commit();
+            }
+            return solved;
+        }
+
+        @Override
+        public boolean onNode(int[][] current) {
+            long n = nodes + 1;
+            nodes = n;
+            if (isCancelled()) {
+                return false;
+            }
+            // Reading the clock on every node is too costly; sample it every 1024 nodes
+            if ((n & 1023) == 0 || visualize) {
+                long now = System.nanoTime();
+                if (now - deadlineNanos >= 0) {
+                    timedOut = true;
+                    return false;
+                }
+                if (now - lastFrameNanos >= FRAME_INTERVAL_NANOS) {
+                    lastFrameNanos = now;
+                    publish(visualize ? copyOf(current) : null);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void onBacktrack(int depth) {
+            backtracks++;
+        }
+
+        @Override
+        protected void process(List<int[][]> snapshots) {
+            // Only the most recent snapshot matters; earlier ones are already stale
+            int[][] latest = snapshots.get(snapshots.size() - 1);
+            if (latest != null && !isDone()) {
+                showGrid(latest);
+            }
+            updateStatus();
+        }
+
+        @Override
+        protected void done() {
+            updateStatus();
+        }
+
+        private void updateStatus() {
+            long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+            long explored = nodes;
+            long perSecond = (long) (explored * 1e9 / elapsedNanos);
+            statusLabel.setText(String.format("Nodes: %,d  |  %,d nodes/s  |  %.3f s",
+                    explored, perSecond, elapsedNanos / 1e9));
+        }
+
+        int[][] getInput() {
+            return input;
+        }
+
+        int[][] getBoard() {
+            return board;
+        }
+
+        boolean isTimedOut() {
+            return timedOut;
+        }
+
+        boolean isSolved() {
+            return solved;
+        }
+    }
 }
 
 // 5 3 _ | _ 7 _ | _ _ _
@@ -125,4 +354,3 @@ public class SudokuSolverGUI {
 // _ 6 _ | _ _ _ | 2 8 _
 // _ _ _ | 4 1 9 | _ _ 5
 // _ _ _ | _ 8 _ | _ 7 9
-
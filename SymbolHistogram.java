@@ -0,0 +1,184 @@
+import java.nio.charset.StandardCharsets; // Benchmark text
+import java.util.Arrays; // Comparing histograms
+import java.util.HashMap; // Baseline counting, as HuffmanTree used to do it
+import java.util.Map; // Baseline counting, as HuffmanTree used to do it
+import java.util.Random; // Seeded benchmark text
+
+/**
+ * Symbol Histogram - frequency counting kernels for the Huffman coders.
+ *
+ * Counting with a single table stalls whenever neighbouring symbols are equal: each
+ * increment has to wait for the previous store to the same slot. Runs of equal symbols
+ * are common in text, so the kernels spread consecutive symbols over LANES interleaved
+ * int[256] tables and add them up at the end. On long runs of one symbol this is about
+ * 3x faster than a single table, and on mixed text about as fast.
+ *
+ * Benchmark: java SymbolHistogram --bench [megabytes]
+ */
+final class SymbolHistogram {
+    private static final int LANES = 4; // Interleaved tables, lane i at offset i * 256
+    private static final int CHUNK = 4096; // Chars copied out of a String at a time
+
+    private SymbolHistogram() {
+    }
+
+    /**
+     * Adds the counts of the bytes in data[from, to) to counts, which has 256 entries.
+     */
+    static void count(byte[] data, int from, int to, long[] counts) {
+        int[] lanes = new int[LANES * 256]; // One array avoids a bounds check per lane
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            lanes[data[i] & 0xFF]++;
+            lanes[256 + (data[i + 1] & 0xFF)]++;
+            lanes[512 + (data[i + 2] & 0xFF)]++;
+            lanes[768 + (data[i + 3] & 0xFF)]++;
+        }
+        for (; i < to; i++) {
+            lanes[data[i] & 0xFF]++;
+        }
+        // A lane sees at most a quarter of one array, so no int overflows
+        for (int symbol = 0; symbol < 256; symbol++) {
+            counts[symbol] += lanes[symbol] + lanes[256 + symbol] + lanes[512 + symbol] + lanes[768 + symbol];
+        }
+    }
+
+    static long[] count(byte[] data) {
+        long[] counts = new long[256];
+        count(data, 0, data.length, counts);
+        return counts;
+    }
+
+    /**
+     * Counts the chars of text below 256 into counts (256 entries).
+     * @return How many chars were 256 or above; the caller counts those itself.
+     */
+    static int countLatin1(String text, int[] counts) {
+        int[] lanes = new int[LANES * 256];
+        char[] chunk = new char[Math.min(CHUNK, text.length())];
+        int others = 0;
+        for (int start = 0; start < text.length(); start += CHUNK) {
+            int n = Math.min(CHUNK, text.length() - start);
+            text.getChars(start, start + n, chunk, 0);
+            int i = 0;
+            for (; i + 4 <= n; i += 4) {
+                int c0 = chunk[i];
+                int c1 = chunk[i + 1];
+                int c2 = chunk[i + 2];
+                int c3 = chunk[i + 3];
+                if ((c0 | c1 | c2 | c3) < 256) {
+                    lanes[c0]++;
+                    lanes[256 + c1]++;
+                    lanes[512 + c2]++;
+                    lanes[768 + c3]++;
+                } else {
+                    others += countOne(c0, lanes) + countOne(c1, lanes) + countOne(c2, lanes) + countOne(c3, lanes);
+                }
+            }
+            for (; i < n; i++) {
+                others += countOne(chunk[i], lanes);
+            }
+        }
+        for (int symbol = 0; symbol < 256; symbol++) {
+            counts[symbol] += lanes[symbol] + lanes[256 + symbol] + lanes[512 + symbol] + lanes[768 + symbol];
+        }
+        return others;
+    }
+
+    private static int countOne(int c, int[] lanes) {
+        if (c < 256) {
+            lanes[c]++;
+            return 0;
+        }
+        return 1;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].equals("--bench")) {
+            System.err.println("Usage: java SymbolHistogram --bench [megabytes]");
+            return;
+        }
+        int megabytes = args.length >= 2 ? Integer.parseInt(args[1]) : 32;
+        // English-like text: skewed letters, spaces and the odd run of repeated symbols
+        Random random = new Random(1);
+        String alphabet = "eeeeeeeeeeeettttttttaaaaaaaoooooooiiiiiiinnnnnnnsssssshhhhhhrrrrrrddddllllcccuuummwwffggyyppbbvk          \n..,,";
+        char[] chars = new char[megabytes << 20];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = random.nextInt(20) == 0 && i > 0 ? chars[i - 1] : alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        String text = new String(chars);
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        double mb = bytes.length / 1e6;
+        byte[] runs = new byte[bytes.length]; // Worst case for one table: every increment hits the slot just written
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = (byte) (i / 1000 % 7);
+        }
+
+        for (int round = 1; round <= 5; round++) {
+            long start = System.nanoTime();
+            Map<Character, Integer> boxed = new HashMap<>();
+            for (char c : text.toCharArray()) {
+                boxed.put(c, boxed.getOrDefault(c, 0) + 1);
+            }
+            long boxedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long[] single = new long[256];
+            for (byte b : bytes) {
+                single[b & 0xFF]++;
+            }
+            long singleNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long[] interleaved = count(bytes);
+            long interleavedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long[] singleRuns = new long[256];
+            for (byte b : runs) {
+                singleRuns[b & 0xFF]++;
+            }
+            long singleRunsNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long[] interleavedRuns = count(runs);
+            long interleavedRunsNanos = System.nanoTime() - start;
+            if (!Arrays.equals(singleRuns, interleavedRuns)) {
+                throw new AssertionError("Histograms disagree on runs");
+            }
+
+            start = System.nanoTime();
+            int[] latin1 = new int[256];
+            countLatin1(text, latin1);
+            long latin1Nanos = System.nanoTime() - start;
+
+            for (int symbol = 0; symbol < 256; symbol++) {
+                Integer expected = boxed.get((char) symbol);
+                if (single[symbol] != interleaved[symbol] || latin1[symbol] != single[symbol]
+                        || single[symbol] != (expected == null ? 0 : expected)) {
+                    throw new AssertionError("Histograms disagree at " + symbol);
+                }
+            }
+
+            HuffmanTree tree = new HuffmanTree(text);
+            start = System.nanoTime();
+            int bits = tree.encode(text).length();
+            long stringNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            byte[] packed = tree.encodePacked(text);
+            long packedNanos = System.nanoTime() - start;
+            if (packed.length != (bits + 7) / 8) {
+                throw new AssertionError("Packed encoding has the wrong size");
+            }
+
+            System.out.printf("Round %d (%.0f MB)%n", round, mb);
+            System.out.printf("  HashMap<Character,Integer>  %,8.0f MB/s%n", mb * 1e9 / boxedNanos);
+            System.out.printf("  one long[256] table         %,8.0f MB/s%n", mb * 1e9 / singleNanos);
+            System.out.printf("  %d interleaved tables, bytes %,8.0f MB/s%n", LANES, mb * 1e9 / interleavedNanos);
+            System.out.printf("  %d interleaved tables, chars %,8.0f MB/s%n", LANES, mb * 1e9 / latin1Nanos);
+            System.out.printf("  runs of 1000: one table     %,8.0f MB/s%n", mb * 1e9 / singleRunsNanos);
+            System.out.printf("  runs of 1000: interleaved   %,8.0f MB/s%n", mb * 1e9 / interleavedRunsNanos);
+            System.out.printf("  encode to '0'/'1' String    %,8.0f MB/s%n", mb * 1e9 / stringNanos);
+            System.out.printf("  encode to packed bytes      %,8.0f MB/s%n", mb * 1e9 / packedNanos);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+import java.util.stream.IntStream; // Parallel triple search over the fork/join pool
+
+/**
+ * Zero-Sum Settlement
+ * Settles a Ledger with the fewest possible payments for the Cash Flow Minimizer.
+ *
+ * A group of k people whose balances add up to zero can always be settled with
+ * k - 1 payments, so the minimum number of payments for n people with non-zero
+ * balances is n minus the largest number of disjoint zero-sum groups they can be
+ * split into. The greedy settlements in CashFlowMinimizer only guarantee n - 1.
+ *
+ * Steps:
+ * 1. Cancel equal and opposite balances as two-person groups (some optimum always contains them).
+ * 2. Up to EXACT_LIMIT remaining people: bitmask DP over subsets finds the optimal partition.
+ * 3. Larger groups: a parallel search pulls out zero-sum triples, and the rest is settled as one pool.
+ */
+final class ZeroSumSettlement {
+    // Largest number of people (after pair cancellation) solved exactly; the DP table has 2^n bytes
+    static final int EXACT_LIMIT = 25;
+    // Partner candidates examined per person when searching for zero-sum triples
+    private static final int TRIPLE_PROBES = 64;
+
+    private ZeroSumSettlement() {
+    }
+
+    /**
+     * Settles every balance in the ledger, optimally for small groups.
+     * @param ledger Ledger holding the net balance of every person.
+     * @return Payments that settle all balances.
+     */
+    static CashFlowMinimizer.Settlements settle(Ledger ledger) {
+        int[] everyone = new int[ledger.size()];
+        for (int id = 0; id < everyone.length; id++) {
+            everyone[id] = id;
+        }
+        return settle(ledger, everyone, 0, everyone.length);
+    }
+
+    /**
+     * Settles only the given people, whose balances must add up to zero.
+     * Safe to call from several threads at once on the same ledger.
+     * @param members Ledger ids; members[from] .. members[to - 1] are settled.
+     * @return Payments that settle those balances.
+     */
+    static CashFlowMinimizer.Settlements settle(Ledger ledger, int[] members, int from, int to) {
+        return settle(ledger, members, from, to, EXACT_LIMIT);
+    }
+
+    /**
+     * Settles only the given people, solving exactly only up to exactLimit of them.
+     * @param exactLimit At most EXACT_LIMIT; lower it to bound the DP's time and memory.
+     */
+    static CashFlowMinimizer.Settlements settle(Ledger ledger, int[] members, int from, int to, int exactLimit) {
+        int debtorCount = 0;
+        int creditorCount = 0;
+        for (int i = from; i < to; i++) {
+            long balance = ledger.balanceOf(members[i]);
+            if (balance < 0) {
+                debtorCount++;
+            } else if (balance > 0) {
+                creditorCount++;
+            }
+        }
+        int[] debtorIds = new int[debtorCount];
+        long[] debts = new long[debtorCount];
+        int[] creditorIds = new int[creditorCount];
+        long[] credits = new long[creditorCount];
+        int d = 0;
+        int c = 0;
+        for (int i = from; i < to; i++) {
+            int id = members[i];
+            long balance = ledger.balanceOf(id);
+            if (balance < 0) {
+                debtorIds[d] = id;
+                debts[d++] = -balance;
+            } else if (balance > 0) {
+                creditorIds[c] = id;
+                credits[c++] = balance;
+            }
+        }
+        CashFlowMinimizer.sortDescending(debts, debtorIds, debtorCount);
+        CashFlowMinimizer.sortDescending(credits, creditorIds, creditorCount);
+
+        CashFlowMinimizer.Settlements result =
+                new CashFlowMinimizer.Settlements(Math.max(0, debtorCount + creditorCount - 1));
+        boolean[] debtorUsed = new boolean[debtorCount];
+        boolean[] creditorUsed = new boolean[creditorCount];
+        cancelPairs(debtorIds, debts, debtorUsed, debtorCount, creditorIds, credits, creditorUsed, creditorCount, result);
+
+        int remaining = countUnused(debtorUsed) + countUnused(creditorUsed);
+        if (remaining <= Math.min(exactLimit, EXACT_LIMIT)) {
+            settleExact(debtorIds, debts, debtorUsed, creditorIds, credits, creditorUsed, remaining, result);
+        } else {
+            // A debtor covered by two creditors, then a creditor covered by two debtors
+            settleTriples(debtorIds, debts, debtorUsed, creditorIds, credits, creditorUsed, true, result);
+            settleTriples(creditorIds, credits, creditorUsed, debtorIds, debts, debtorUsed, false, result);
+            settleRest(debtorIds, debts, debtorUsed, creditorIds, credits, creditorUsed, result);
+        }
+        return result;
+    }
+
+    /**
+     * Matches debtors and creditors with exactly equal amounts by merging the two
+     * descending arrays, and settles each match with a single payment.
+     */
+    private static void cancelPairs(int[] debtorIds, long[] debts, boolean[] debtorUsed, int debtorCount,
+                                    int[] creditorIds, long[] credits, boolean[] creditorUsed, int creditorCount,
+                                    CashFlowMinimizer.Settlements out) {
+        int d = 0;
+        int c = 0;
+        while (d < debtorCount && c < creditorCount) {
+            if (debts[d] == credits[c]) {
+                out.add(debtorIds[d], creditorIds[c], debts[d]);
+                debtorUsed[d++] = true;
+                creditorUsed[c++] = true;
+            } else if (debts[d] > credits[c]) {
+                d++;
+            } else {
+                c++;
+            }
+        }
+    }
+
+    /**
+     * Finds the maximum number of disjoint zero-sum groups among the unused people
+     * with a DP over subsets, then settles each group on its own.
+     *
+     * groups[mask] is the most zero-sum groups that a prefix ordering of mask can close:
+     * groups[mask] = max over i in mask of groups[mask without i], plus one if mask sums to zero.
+     * Subset sums come from two half-size tables instead of a 2^n array of longs.
+     */
+    private static void settleExact(int[] debtorIds, long[] debts, boolean[] debtorUsed,
+                                    int[] creditorIds, long[] credits, boolean[] creditorUsed,
+                                    int n, CashFlowMinimizer.Settlements out) {
+        if (n == 0) {
+            return;
+        }
+        // Gather the people into one signed array: negative = owes money
+        int[] ids = new int[n];
+        long[] balances = new long[n];
+        int k = 0;
+        for (int i = 0; i < debtorIds.length; i++) {
+            if (!debtorUsed[i]) {
+                ids[k] = debtorIds[i];
+                balances[k++] = -debts[i];
+            }
+        }
+        for (int i = 0; i < creditorIds.length; i++) {
+            if (!creditorUsed[i]) {
+                ids[k] = creditorIds[i];
+                balances[k++] = credits[i];
+            }
+        }
+
+        int lowBits = n / 2;
+        long[] lowSums = subsetSums(balances, 0, lowBits);
+        long[] highSums = subsetSums(balances, lowBits, n - lowBits);
+        int lowMask = (1 << lowBits) - 1;
+
+        int full = (1 << n) - 1;
+        byte[] groups = new byte[full + 1];
+        for (int mask = 1; mask <= full; mask++) {
+            int limit = (Integer.bitCount(mask) - 1) / 2; // A subset of p - 1 people has at most (p - 1) / 2 groups
+            int best = 0;
+            for (int rest = mask; rest != 0 && best < limit; rest &= rest - 1) {
+                best = Math.max(best, groups[mask ^ (rest & -rest)]);
+            }
+            boolean zero = lowSums[mask & lowMask] + highSums[mask >>> lowBits] == 0;
+            groups[mask] = (byte) (zero ? best + 1 : best);
+        }
+
+        // Walk back down the table; every zero-sum prefix closes a group
+        int mask = full;
+        int groupStart = full;
+        while (mask != 0) {
+            boolean zero = lowSums[mask & lowMask] + highSums[mask >>> lowBits] == 0;
+            int target = zero ? groups[mask] - 1 : groups[mask];
+            int rest = mask;
+            while (groups[mask ^ (rest & -rest)] != target) {
+                rest &= rest - 1;
+            }
+            mask ^= rest & -rest;
+            if (lowSums[mask & lowMask] + highSums[mask >>> lowBits] == 0) {
+                settleGroup(ids, balances, groupStart ^ mask, out);
+                groupStart = mask;
+            }
+        }
+    }
+
+    private static long[] subsetSums(long[] balances, int offset, int bits) {
+        long[] sums = new long[1 << bits];
+        for (int mask = 1; mask < sums.length; mask++) {
+            sums[mask] = sums[mask & (mask - 1)] + balances[offset + Integer.numberOfTrailingZeros(mask)];
+        }
+        return sums;
+    }
+
+    /**
+     * Settles one zero-sum group (given as a bitmask over ids) with two pointers.
+     */
+    private static void settleGroup(int[] ids, long[] balances, int members, CashFlowMinimizer.Settlements out) {
+        int size = Integer.bitCount(members);
+        int[] debtorIds = new int[size];
+        long[] debts = new long[size];
+        int[] creditorIds = new int[size];
+        long[] credits = new long[size];
+        int d = 0;
+        int c = 0;
+        for (int rest = members; rest != 0; rest &= rest - 1) {
+            int i = Integer.numberOfTrailingZeros(rest);
+            if (balances[i] < 0) {
+                debtorIds[d] = ids[i];
+                debts[d++] = -balances[i];
+            } else {
+                creditorIds[c] = ids[i];
+                credits[c++] = balances[i];
+            }
+        }
+        CashFlowMinimizer.settlePool(debtorIds, debts, d, creditorIds, credits, c, out);
+    }
+
+    /**
+     * Heuristic for large groups: settles triples where one person's balance equals
+     * the sum of two people on the other side. Candidate partners are searched in
+     * parallel against a snapshot of the used flags; triples are then accepted
+     * sequentially, re-checking that all three people are still free.
+     * @param singlesAreDebtors True when each single is a debtor paid off by two creditors.
+     */
+    private static void settleTriples(int[] singleIds, long[] singles, boolean[] singleUsed,
+                                      int[] pairIds, long[] pairs, boolean[] pairUsed,
+                                      boolean singlesAreDebtors, CashFlowMinimizer.Settlements out) {
+        // candidate[i] = amount of the first partner found for single i, or 0 if none
+        long[] candidate = new long[singles.length];
+        IntStream.range(0, singles.length).parallel().forEach(i -> {
+            if (!singleUsed[i]) {
+                candidate[i] = findPairSum(singles[i], pairs, pairUsed);
+            }
+        });
+
+        for (int i = 0; i < singles.length; i++) {
+            if (singleUsed[i] || candidate[i] == 0) {
+                continue;
+            }
+            int first = findUnused(pairs, pairUsed, candidate[i], -1);
+            int second = first < 0 ? -1 : findUnused(pairs, pairUsed, singles[i] - candidate[i], first);
+            if (second < 0) {
+                continue; // A partner was taken by an earlier triple
+            }
+            singleUsed[i] = true;
+            pairUsed[first] = true;
+            pairUsed[second] = true;
+            for (int partner : new int[]{first, second}) {
+                if (singlesAreDebtors) {
+                    out.add(singleIds[i], pairIds[partner], pairs[partner]);
+                } else {
+                    out.add(pairIds[partner], singleIds[i], pairs[partner]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks for two free entries of the descending array that add up to target,
+     * probing at most TRIPLE_PROBES first partners.
+     * @return Amount of the first partner, or 0 if no pair was found.
+     */
+    private static long findPairSum(long target, long[] amounts, boolean[] used) {
+        int probes = 0;
+        for (int j = firstAtMost(amounts, target - 1); j < amounts.length && probes < TRIPLE_PROBES; j++) {
+            if (used[j]) {
+                continue;
+            }
+            probes++;
+            long rest = target - amounts[j];
+            if (rest > amounts[j]) {
+                break; // Remaining partners only get smaller, so rest would have been seen as a first partner
+            }
+            if (findUnused(amounts, used, rest, j) >= 0) {
+                return amounts[j];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a free index holding exactly amount, other than exclude, or -1.
+     */
+    private static int findUnused(long[] amounts, boolean[] used, long amount, int exclude) {
+        for (int i = firstAtMost(amounts, amount); i < amounts.length && amounts[i] == amount; i++) {
+            if (!used[i] && i != exclude) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Binary search in a descending array for the first index whose value is at most limit.
+     */
+    private static int firstAtMost(long[] amounts, long limit) {
+        int low = 0;
+        int high = amounts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (amounts[mid] > limit) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Settles everyone still unused as one pool with two pointers.
+     */
+    private static void settleRest(int[] debtorIds, long[] debts, boolean[] debtorUsed,
+                                   int[] creditorIds, long[] credits, boolean[] creditorUsed,
+                                   CashFlowMinimizer.Settlements out) {
+        int debtorCount = compact(debtorIds, debts, debtorUsed);
+        int creditorCount = compact(creditorIds, credits, creditorUsed);
+        CashFlowMinimizer.settlePool(debtorIds, debts, debtorCount, creditorIds, credits, creditorCount, out);
+    }
+
+    /**
+     * Moves unused entries to the front of the arrays, preserving order.
+     * @return Number of unused entries.
+     */
+    private static int compact(int[] ids, long[] amounts, boolean[] used) {
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (!used[i]) {
+                ids[count] = ids[i];
+                amounts[count++] = amounts[i];
+            }
+        }
+        return count;
+    }
+
+    private static int countUnused(boolean[] used) {
+        int count = 0;
+        for (boolean u : used) {
+            if (!u) {
+                count++;
+            }
+        }
+        return count;
+    }
+}